@@ -5,16 +5,20 @@ import com.lordrelentless.mcfluiddynamicsv2.block.VoxelType;
 import com.lordrelentless.mcfluiddynamicsv2.blockentity.FluidVoxelBlockEntity;
 import com.lordrelentless.mcfluiddynamicsv2.capability.IWorldFluidIndex;
 import com.lordrelentless.mcfluiddynamicsv2.util.Config;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.util.Mth;
+import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.block.state.BlockState;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
 
 @EventBusSubscriber(modid = MCFluidDynamicsV2Mod.MODID, bus = EventBusSubscriber.Bus.FORGE)
@@ -24,30 +28,76 @@ public class TickHandler {
     private static final float TERMINAL_VELOCITY = 1.2f;
     private static final float FLUID_MOMENTUM_RETAIN = 0.94f;
     private static final float PRESSURE_FORCE = 0.6f;
+    private static final int MAX_PRESSURE = 10;
+    private static final byte WATER_ID = (byte) VoxelType.WATER.ordinal();
+
+    // Reused every water tick: cleared, never reallocated, so a busy world stops churning boxed keys
+    private static final List<BlockPos> FLUIDS = new ArrayList<>();
+    private static final Long2ByteOpenHashMap TYPE_SNAPSHOT = new Long2ByteOpenHashMap();
+    private static final Long2IntOpenHashMap PRESSURE_CACHE = new Long2IntOpenHashMap();
+    static {
+        TYPE_SNAPSHOT.defaultReturnValue((byte) -1);
+        PRESSURE_CACHE.defaultReturnValue(-1);
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static long lastTickAllocatedBytes = -1;
+
+    /** Deterministic mode: chunk column by chunk column, then bottom to top, so neighbours run close together. */
+    private static final Comparator<BlockPos> SECTION_ORDER = Comparator
+            .comparingInt((BlockPos p) -> p.getX() >> 4)
+            .thenComparingInt(p -> p.getZ() >> 4)
+            .thenComparingInt(BlockPos::getY)
+            .thenComparingInt(BlockPos::getZ)
+            .thenComparingInt(BlockPos::getX);
+    private static final RandomSource SEEDED_RANDOM = RandomSource.create(0L);
+    private static final long WEATHER_SALT = 0x5745415448455221L;
+
+    /** Heap allocated by the server thread during the last water tick, all levels, or -1 if unmeasured. */
+    public static long getLastTickAllocatedBytes() {
+        return lastTickAllocatedBytes;
+    }
 
     @SubscribeEvent
     public static void onServerTick(ServerTickEvent event) {
         if (event.phase == ServerTickEvent.Phase.END && event.getServer().getTickCount() % 2 == 0) { // ~10Hz for perf
+            long thread = Thread.currentThread().getId();
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
             for (ServerLevel world : event.getServer().getAllLevels()) {
                 world.getCapability(MCFluidDynamicsV2Mod.FLUID_INDEX_CAP).ifPresent(cap -> runWaterTick(world, cap));
             }
+            // -1 when the JVM doesn't support allocation counting
+            lastTickAllocatedBytes = allocatedBefore < 0 ? -1 : THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
         }
     }
 
     private static void runWaterTick(ServerLevel world, IWorldFluidIndex cap) {
         // Spawn weather
-        spawnWeather(world, cap);
+        spawnWeather(world, cap, randomFor(world, WEATHER_SALT));
 
-        List<BlockPos> fluids = new ArrayList<>(cap.getFluidPositions());
-        Collections.shuffle(fluids);
-        Map<Long, VoxelType> fluidTypeSnapshot = new HashMap<>();
+        List<BlockPos> fluids = FLUIDS;
+        fluids.clear();
+        cap.copyFluidPositions(fluids); // straight from the index's sets into the reused list
+        if (Config.DETERMINISTIC) {
+            fluids.sort(SECTION_ORDER);
+        } else {
+            Collections.shuffle(fluids);
+        }
+        // Voxel type ordinal per position, -1 where there is no fluid voxel
+        Long2ByteOpenHashMap fluidTypeSnapshot = TYPE_SNAPSHOT;
+        fluidTypeSnapshot.clear();
         for (BlockPos p : fluids) {
             BlockState state = world.getBlockState(p);
             if (state.is(MCFluidDynamicsV2Mod.FLUID_VOXEL_BLOCK.get())) {
-                fluidTypeSnapshot.put(p.asLong(), state.getValue(FluidVoxelBlock.TYPE));
+                fluidTypeSnapshot.put(p.asLong(), (byte) state.getValue(FluidVoxelBlock.TYPE).ordinal());
             }
         }
 
+        // Pressure per position, shared down each column so every voxel is walked once per tick
+        Long2IntOpenHashMap pressureCache = PRESSURE_CACHE;
+        pressureCache.clear();
+
         // Phase 1: Compute updates
         for (BlockPos pos : fluids) {
             BlockState state = world.getBlockState(pos);
@@ -57,13 +107,14 @@ public class TickHandler {
             if (be == null) continue;
 
             VoxelType currType = state.getValue(FluidVoxelBlock.TYPE);
+            RandomSource random = randomFor(world, pos.asLong());
 
             // Phase change
-            VoxelType newType = computePhaseChange(world, pos, currType, be, fluidTypeSnapshot);
+            VoxelType newType = computePhaseChange(world, pos, currType, be, fluidTypeSnapshot, random);
             be.tempTypeId = (byte) newType.ordinal();
 
             // Pressure
-            float pressure = computePressure(world, pos, fluidTypeSnapshot);
+            float pressure = computePressure(pos, fluidTypeSnapshot, pressureCache);
             be.pressure = pressure;
 
             // Neighbors bitmask
@@ -71,7 +122,7 @@ public class TickHandler {
             be.neighbors = neighbors;
 
             // Physics (ported exactly)
-            updatePhysics(world, pos, be, currType, pressure, neighbors, fluidTypeSnapshot);
+            updatePhysics(world, pos, be, currType, pressure, neighbors, fluidTypeSnapshot, random);
         }
 
         // Phase 2: Apply moves/type changes
@@ -111,9 +162,23 @@ public class TickHandler {
             newBe.setCachedTemp(oldBe.getCachedTemp());
             world.setBlockEntity(newBe);
         }
+
+        // Don't pin positions of a level that may unload before the next water tick
+        fluids.clear();
+    }
+
+    /**
+     * {@code world.random}, or in deterministic mode a generator reseeded from the seed, the game time and
+     * {@code key}, so a voxel's draws don't depend on how many voxels ran before it.
+     */
+    private static RandomSource randomFor(ServerLevel world, long key) {
+        if (!Config.DETERMINISTIC) return world.random;
+        long hash = Mth.murmurHash3Mixer(key) ^ Mth.murmurHash3Mixer(world.getGameTime() + Config.DETERMINISTIC_SEED);
+        SEEDED_RANDOM.setSeed(Mth.murmurHash3Mixer(hash));
+        return SEEDED_RANDOM;
     }
 
-    private static VoxelType computePhaseChange(ServerLevel world, BlockPos pos, VoxelType currType, FluidVoxelBlockEntity be, Map<Long, VoxelType> snapshot) {
+    private static VoxelType computePhaseChange(ServerLevel world, BlockPos pos, VoxelType currType, FluidVoxelBlockEntity be, Long2ByteOpenHashMap snapshot, RandomSource random) {
         float temp = Config.getTemperature(world, pos);
         be.setCachedTemp(temp);  // Cache for client render sync
 
@@ -142,7 +207,7 @@ public class TickHandler {
                     return VoxelType.ICE;  // Render as ice, no move
                 }
                 return VoxelType.SNOW;  // Fall as snow
-            } else if (isHailTemp && world.random.nextFloat() < 0.01f) {
+            } else if (isHailTemp && random.nextFloat() < 0.01f) {
                 return VoxelType.HAIL;
             } else if (isGlobalSteam) {
                 return VoxelType.STEAM;
@@ -153,23 +218,38 @@ public class TickHandler {
         return currType;
     }
 
-    private static float computePressure(ServerLevel world, BlockPos pos, Map<Long, VoxelType> snapshot) {
-        float pressure = 0;
-        BlockPos above = pos.above();
-        for (int k = 0; k < 10; k++) {
-            Long key = above.asLong();
-            VoxelType t = snapshot.get(key);
-            if (t == VoxelType.WATER) {
-                pressure++;
-                above = above.above();
-            } else {
+    /**
+     * Number of water voxels stacked directly above, up to {@link #MAX_PRESSURE}. A voxel's pressure is
+     * one more than the water above it, so the walk stops at the first cached voxel and fills the
+     * column in on the way back down.
+     */
+    private static float computePressure(BlockPos pos, Long2ByteOpenHashMap snapshot, Long2IntOpenHashMap cache) {
+        int cached = cache.get(pos.asLong());
+        if (cached >= 0) return cached;
+
+        // Walk up to the top of the water run or to a voxel whose pressure is already known
+        int x = pos.getX();
+        int z = pos.getZ();
+        int top = pos.getY();
+        int pressure = 0;
+        while (snapshot.get(BlockPos.asLong(x, top + 1, z)) == WATER_ID) {
+            top++;
+            int known = cache.get(BlockPos.asLong(x, top, z));
+            if (known >= 0) {
+                pressure = known;
                 break;
             }
         }
-        return pressure;
+
+        // Fill in the column from there down to pos
+        for (int y = top; y >= pos.getY(); y--) {
+            cache.put(BlockPos.asLong(x, y, z), pressure);
+            pressure = Math.min(MAX_PRESSURE, pressure + 1);
+        }
+        return cache.get(pos.asLong());
     }
 
-    private static int computeNeighbors(ServerLevel world, BlockPos pos, Map<Long, VoxelType> snapshot) {
+    private static int computeNeighbors(ServerLevel world, BlockPos pos, Long2ByteOpenHashMap snapshot) {
         int n = 0;
         for (Direction d : Direction.values()) {
             BlockPos nb = pos.relative(d);
@@ -188,12 +268,12 @@ public class TickHandler {
         return n;
     }
 
-    private static void updatePhysics(ServerLevel world, BlockPos pos, FluidVoxelBlockEntity be, VoxelType type, float pressure, int neighbors, Map<Long, VoxelType> snapshot) {
+    private static void updatePhysics(ServerLevel world, BlockPos pos, FluidVoxelBlockEntity be, VoxelType type, float pressure, int neighbors, Long2ByteOpenHashMap snapshot, RandomSource random) {
         // Vertical
         if (type == VoxelType.STEAM) {
             be.vy += 0.08f;
-            be.vx += (world.random.nextFloat() - 0.5f) * 0.4f;
-            be.vz += (world.random.nextFloat() - 0.5f) * 0.4f;
+            be.vx += (random.nextFloat() - 0.5f) * 0.4f;
+            be.vz += (random.nextFloat() - 0.5f) * 0.4f;
         } else {
             be.vy -= GRAVITY;
             if (be.vy < -TERMINAL_VELOCITY) be.vy = -TERMINAL_VELOCITY;
@@ -212,8 +292,8 @@ public class TickHandler {
             collidedY = true;
             if (type == VoxelType.HAIL) {
                 be.vy *= -0.6f;
-                be.vx += (world.random.nextFloat() - 0.5f) * 0.5f;
-                be.vz += (world.random.nextFloat() - 0.5f) * 0.5f;
+                be.vx += (random.nextFloat() - 0.5f) * 0.5f;
+                be.vz += (random.nextFloat() - 0.5f) * 0.5f;
             } else {
                 be.vy = 0;
             }
@@ -222,16 +302,16 @@ public class TickHandler {
             boolean blocked = !world.getBlockState(nextYPos).isAir() || snapshot.containsKey(nextYPos.asLong());
             if (blocked) {
                 collidedY = true;
-                if (type != VoxelType.STEAM && snapshot.getOrDefault(nextYPos.asLong(), null) == VoxelType.WATER) {
+                if (type != VoxelType.STEAM && snapshot.get(nextYPos.asLong()) == WATER_ID) {
                     float spreadForce = PRESSURE_FORCE + pressure * 0.15f;
                     float spread = Math.abs(be.vy) * spreadForce;
-                    if (world.random.nextBoolean()) be.vx += (world.random.nextFloat() - 0.5f) * spread;
-                    else be.vz += (world.random.nextFloat() - 0.5f) * spread;
+                    if (random.nextBoolean()) be.vx += (random.nextFloat() - 0.5f) * spread;
+                    else be.vz += (random.nextFloat() - 0.5f) * spread;
                 }
                 if (type == VoxelType.HAIL) {
                     be.vy *= -0.5f;
-                    be.vx += (world.random.nextFloat() - 0.5f) * 0.4f;
-                    be.vz += (world.random.nextFloat() - 0.5f) * 0.4f;
+                    be.vx += (random.nextFloat() - 0.5f) * 0.4f;
+                    be.vz += (random.nextFloat() - 0.5f) * 0.4f;
                 } else {
                     be.vy = 0;
                 }
@@ -246,9 +326,9 @@ public class TickHandler {
 
             if (collidedY || !world.getBlockState(pos.below()).isAir()) {
                 if (pressure > 0) {
-                    int dir = world.random.nextBoolean() ? 1 : -1;
+                    int dir = random.nextBoolean() ? 1 : -1;
                     float boost = 0.2f * pressure;
-                    if (world.random.nextBoolean()) be.vx += dir * (0.5f + boost);
+                    if (random.nextBoolean()) be.vx += dir * (0.5f + boost);
                     else be.vz += dir * (0.5f + boost);
                 }
 
@@ -301,15 +381,15 @@ public class TickHandler {
         be.tempNextZ = nextZ;
     }
 
-    private static void spawnWeather(ServerLevel world, IWorldFluidIndex cap) {
+    private static void spawnWeather(ServerLevel world, IWorldFluidIndex cap, RandomSource random) {
         List<ServerPlayer> players = world.players();
         if (players.isEmpty()) return;
 
-        ServerPlayer player = players.get(world.random.nextInt(players.size()));
+        ServerPlayer player = players.get(random.nextInt(players.size()));
         BlockPos center = player.blockPosition();
         int area = 24;
-        int sx = center.getX() + world.random.nextInt(area * 2) - area;
-        int sz = center.getZ() + world.random.nextInt(area * 2) - area;
+        int sx = center.getX() + random.nextInt(area * 2) - area;
+        int sz = center.getZ() + random.nextInt(area * 2) - area;
         int sy = Math.min(220, world.getMaxBuildHeight() - 20);
         BlockPos spawnPos = new BlockPos(sx, sy, sz);
         BlockPos biomePos = new BlockPos(sx, 64, sz);  // Surface for biome/precip
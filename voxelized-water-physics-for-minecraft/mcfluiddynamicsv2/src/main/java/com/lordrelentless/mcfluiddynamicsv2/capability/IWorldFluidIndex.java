@@ -1,12 +1,15 @@
 package com.lordrelentless.mcfluiddynamicsv2.capability;
 
 import net.minecraft.core.BlockPos;
+import java.util.Collection;
 import java.util.List;
 
 public interface IWorldFluidIndex {
     void addFluidPos(BlockPos pos);
     void removeFluidPos(BlockPos pos);
     List<BlockPos> getFluidPositions();
+    /** Appends every indexed position to {@code into}, without building a list of its own. */
+    void copyFluidPositions(Collection<? super BlockPos> into);
     int getAndIncrementWeatherCounter();
     void resetWeatherCounter();
 }
\ No newline at end of file
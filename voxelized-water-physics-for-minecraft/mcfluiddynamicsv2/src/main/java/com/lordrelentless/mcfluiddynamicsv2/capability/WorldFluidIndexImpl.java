@@ -36,6 +36,15 @@ class WorldFluidIndexImpl implements IWorldFluidIndex {
         return list;
     }
 
+    @Override
+    public void copyFluidPositions(Collection<? super BlockPos> into) {
+        for (Set<BlockPos> chunk : positions.values()) {
+            for (BlockPos pos : chunk) {
+                into.add(pos);
+            }
+        }
+    }
+
     @Override
     public int getAndIncrementWeatherCounter() {
         return weatherTickCounter++;
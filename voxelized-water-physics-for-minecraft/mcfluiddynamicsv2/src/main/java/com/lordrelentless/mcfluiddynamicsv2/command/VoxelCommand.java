@@ -1,10 +1,12 @@
 package com.lordrelentless.mcfluiddynamicsv2.command;
 
 import com.lordrelentless.mcfluiddynamicsv2.Generators;
+import com.lordrelentless.mcfluiddynamicsv2.TickHandler;
 import com.lordrelentless.mcfluiddynamicsv2.util.Config;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.FloatArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
@@ -49,6 +51,21 @@ public class VoxelCommand {
                     .executes(VoxelCommand::setPrecip)
                 )
             )
+
+            // /voxel seed <long> | /voxel seed off
+            .then(CommandManager.literal("seed")
+                .then(CommandManager.literal("off")
+                    .executes(VoxelCommand::disableSeed)
+                )
+                .then(CommandManager.argument("value", LongArgumentType.longArg())
+                    .executes(VoxelCommand::setSeed)
+                )
+            )
+
+            // /voxel stats
+            .then(CommandManager.literal("stats")
+                .executes(VoxelCommand::showStats)
+            )
         );
     }
 
@@ -91,4 +108,26 @@ public class VoxelCommand {
         context.getSource().sendFeedback(Text.literal("Precipitation intensity set to " + value), true);
         return 1;
     }
+
+    private static int setSeed(CommandContext<ServerCommandSource> context) {
+        long value = LongArgumentType.getLong(context, "value");
+        Config.DETERMINISTIC_SEED = value;
+        Config.DETERMINISTIC = true;
+        context.getSource().sendFeedback(Text.literal("Deterministic simulation with seed " + value), true);
+        return 1;
+    }
+
+    private static int disableSeed(CommandContext<ServerCommandSource> context) {
+        Config.DETERMINISTIC = false;
+        context.getSource().sendFeedback(Text.literal("Deterministic simulation off"), true);
+        return 1;
+    }
+
+    private static int showStats(CommandContext<ServerCommandSource> context) {
+        long bytes = TickHandler.getLastTickAllocatedBytes();
+        context.getSource().sendFeedback(Text.literal(bytes < 0
+            ? "Water tick allocation not measured"
+            : "Last water tick allocated " + (bytes / 1024) + " KB"), false);
+        return 1;
+    }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import net.minecraft.world.level.biome.Biome.Precipitation;
 
 public class Config {
     public static float PRECIPITATION_INTENSITY = 50.0f; // Global multiplier 0-100, set via /voxel precip <val>
+    public static boolean DETERMINISTIC = false; // Seeded per-voxel randomness and fixed order, set via /voxel seed <val|off>
+    public static long DETERMINISTIC_SEED = 0L;
 
     /**
      * Computes local temperature in Celsius at pos, incorporating biome, height lapse rate, and season.
@@ -0,0 +1,107 @@
+package com.lordrelentless.mcfluiddynamicsv2.capability;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and loads the same seeded index in the old per-position layout and the current packed one,
+ * through the same compressed NBT path SavedData uses. {@code save} also reports the compressed file size
+ * as its {@code compressedBytes} counter.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IndexFormatBenchmark {
+    @Param({"10000", "100000"})
+    public int positions;
+
+    @Param({"true", "false"})
+    public boolean legacy;
+
+    private FluidIndexShards shards;
+    private byte[] file;
+
+    @Setup
+    public void setup() throws IOException {
+        shards = randomIndex(positions, new Random(0x5EED));
+        file = write();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] save(FileSize size) throws IOException {
+        byte[] written = write();
+        size.compressedBytes = written.length;
+        return written;
+    }
+
+    private byte[] write() throws IOException {
+        CompoundTag tag = new CompoundTag();
+        if (legacy) {
+            FluidIndexCodec.writeLegacy(shards, tag);
+        } else {
+            FluidIndexCodec.write(shards, tag);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(tag, out);
+        return out.toByteArray();
+    }
+
+    /** The file size of the last save, reported by JMH next to its timing. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FileSize {
+        public long compressedBytes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FluidIndexShards load() throws IOException {
+        CompoundTag tag = NbtIo.readCompressed(new ByteArrayInputStream(file), NbtAccounter.unlimitedHeap());
+        FluidIndexShards read = new FluidIndexShards();
+        FluidIndexCodec.read(tag, read);
+        return read;
+    }
+
+    /** Clustered like real water: pools a few blocks deep scattered over a few hundred chunks, none loaded. */
+    private static FluidIndexShards randomIndex(int positions, Random random) {
+        FluidIndexShards shards = new FluidIndexShards();
+        int added = 0;
+        while (added < positions) {
+            int cx = random.nextInt(64) - 32;
+            int cz = random.nextInt(64) - 32;
+            int surface = 50 + random.nextInt(30);
+            int depth = 1 + random.nextInt(6);
+            for (int i = 0; i < 256 && added < positions; i++) {
+                int x = (cx << 4) | random.nextInt(16);
+                int z = (cz << 4) | random.nextInt(16);
+                int y = surface - random.nextInt(depth);
+                if (shards.addWaiting(BlockPos.asLong(x, y, z))) added++;
+            }
+        }
+        return shards;
+    }
+}
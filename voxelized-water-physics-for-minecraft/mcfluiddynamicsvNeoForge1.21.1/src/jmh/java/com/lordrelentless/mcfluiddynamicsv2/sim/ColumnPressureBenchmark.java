@@ -0,0 +1,52 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pressure rebuilt for every column of every section a scenario touches, as after a step that moved
+ * water everywhere. One operation is one fluid cell, so the empty cells walked on the way are part of the cost.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ColumnPressureBenchmark {
+    @Param({"FULL_TANK", "DAM_BREAK", "RAIN_FIELD", "SPARSE_CLOUD"})
+    public FluidScenario scenario;
+
+    private BenchmarkGrid grid;
+
+    @Setup
+    public void setup() {
+        grid = scenario.build(0x5EED);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(FluidScenario.CELLS)
+    public void cellsPerSecond() {
+        grid.rebuildPressure();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(FluidScenario.CELLS)
+    public void nsPerCell() {
+        grid.rebuildPressure();
+    }
+}
@@ -0,0 +1,75 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One whole {@link FluidCore} step over a fresh scenario: pressure, gathering, the kernel, applying the
+ * fluxes and the block writes to an {@link InMemoryFluidView}. The grid is rebuilt before every step so
+ * each one starts from the scenario's first tick. No budget, LOD or water bodies, so every cell steps.
+ *
+ * <p>{@code parallel} only pays off with spare cores: on a single core the pool has one worker, and the
+ * fork/join path measured within a few percent of the serial one either way on every scenario.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FluidStepBenchmark {
+    @Param({"FULL_TANK", "DAM_BREAK", "RAIN_FIELD", "SPARSE_CLOUD"})
+    public FluidScenario scenario;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private FluidCore core;
+    private long now;
+
+    @Setup(Level.Invocation)
+    public void rebuild() {
+        core = scenario.build(0x5EED).core();
+        core.settings().lodEnabled = false;
+        core.settings().lakeMode = false;
+        core.settings().parallel = parallel;
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        FluidCore.shutdownPool();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(FluidScenario.CELLS)
+    public FluidCore cellsPerSecond() {
+        return step();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(FluidScenario.CELLS)
+    public FluidCore nsPerCell() {
+        return step();
+    }
+
+    private FluidCore step() {
+        core.tick(now++, 0);
+        return core;
+    }
+}
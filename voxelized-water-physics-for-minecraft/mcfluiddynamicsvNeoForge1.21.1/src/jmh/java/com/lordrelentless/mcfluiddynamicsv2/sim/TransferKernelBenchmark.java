@@ -0,0 +1,98 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Down flow, equalizing and overflow for every awake cell of a scenario, as one kernel pass over its
+ * gathered rows. One operation is one cell, so throughput reads as cells/s and average time as ns/cell.
+ * The vector kernel is checked against the scalar one on the same rows before it is timed.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransferKernelBenchmark {
+    @Param({"FULL_TANK", "DAM_BREAK", "RAIN_FIELD", "SPARSE_CLOUD"})
+    public FluidScenario scenario;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private TransferKernel transferKernel;
+    private TransferRow[] rows;
+
+    @Setup
+    public void setup() {
+        transferKernel = kernel.equals("vector") ? vectorKernel() : new ScalarTransferKernel();
+        rows = scenario.build(0x5EED).rows();
+        int live = BenchmarkGrid.liveCells(rows);
+        if (live != FluidScenario.CELLS) {
+            throw new IllegalStateException(scenario + " gathered " + live + " live cells, expected " + FluidScenario.CELLS);
+        }
+        if (!(transferKernel instanceof ScalarTransferKernel)) {
+            checkAgainstScalar();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(FluidScenario.CELLS)
+    public TransferRow[] cellsPerSecond() {
+        return pass();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(FluidScenario.CELLS)
+    public TransferRow[] nsPerCell() {
+        return pass();
+    }
+
+    /** The vector kernel is in its own source set and only reachable by name, the way the mod loads it. */
+    private static TransferKernel vectorKernel() {
+        TransferKernel vector = TransferKernel.create(true, e -> {
+            throw new IllegalStateException("Vector kernel unavailable", e);
+        });
+        if (vector instanceof ScalarTransferKernel) {
+            throw new IllegalStateException("Vector kernel needs --add-modules jdk.incubator.vector");
+        }
+        return vector;
+    }
+
+    /** Timings of a kernel that disagrees with the scalar one mean nothing, so the run stops instead. */
+    private void checkAgainstScalar() {
+        TransferRow[] expected = scenario.build(0x5EED).rows();
+        TransferKernel scalar = new ScalarTransferKernel();
+        for (int r = 0; r < rows.length; r++) {
+            scalar.compute(expected[r]);
+            transferKernel.compute(rows[r]);
+            if (!Arrays.equals(expected[r].out, rows[r].out) || !Arrays.equals(expected[r].open, rows[r].open)) {
+                throw new IllegalStateException(transferKernel.name() + " differs from the scalar kernel on "
+                        + scenario + " row " + r);
+            }
+        }
+    }
+
+    private TransferRow[] pass() {
+        for (TransferRow row : rows) {
+            transferKernel.compute(row);
+        }
+        return rows;
+    }
+}
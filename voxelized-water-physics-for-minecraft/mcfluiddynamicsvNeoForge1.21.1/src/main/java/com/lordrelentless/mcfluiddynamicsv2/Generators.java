@@ -112,4 +112,17 @@ public final class Generators {
 
         source.sendSuccess(() -> Component.literal("Terrain with voxel water pond generated!"), true);
     }
+
+    public static void generateDamBreak(CommandSourceStack source, BlockPos origin) {
+        ServerLevel level = source.getLevel();
+
+        // Floor for the flood to run out over
+        simpleBox(level, origin, 48, 1, 16, Colors.GRASS, "solid");
+
+        // Reservoir against a back wall, with nothing holding its front: it collapses on the next tick
+        simpleBox(level, origin.offset(0, 1, 0), 1, 12, 16, Colors.GLASS, "solid");
+        simpleBox(level, origin.offset(1, 1, 0), 8, 12, 16, 0, "water");
+
+        source.sendSuccess(() -> Component.literal("Dam break generated! Watch /voxel stats for client sync traffic."), true);
+    }
 }
\ No newline at end of file
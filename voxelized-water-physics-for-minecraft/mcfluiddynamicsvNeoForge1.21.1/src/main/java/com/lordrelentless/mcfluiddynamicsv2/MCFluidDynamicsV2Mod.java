@@ -3,7 +3,13 @@ package com.lordrelentless.mcfluiddynamicsv2;
 import com.lordrelentless.mcfluiddynamicsv2.block.ColoredSolidBlock;
 import com.lordrelentless.mcfluiddynamicsv2.block.FluidVoxelBlock;
 import com.lordrelentless.mcfluiddynamicsv2.blockentity.FluidVoxelBlockEntity;
+import com.lordrelentless.mcfluiddynamicsv2.capability.FluidChunkData;
+import com.lordrelentless.mcfluiddynamicsv2.client.ClientFluidStore;
+import com.lordrelentless.mcfluiddynamicsv2.capability.WorldFluidIndexProvider;
 import com.lordrelentless.mcfluiddynamicsv2.command.VoxelCommand;
+import com.lordrelentless.mcfluiddynamicsv2.network.FluidNetwork;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSimulator;
+import com.lordrelentless.mcfluiddynamicsv2.util.TemperatureField;
 import com.mojang.logging.LogUtils;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.world.item.BlockItem;
@@ -14,11 +20,13 @@ import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.loading.FMLEnvironment;
+import net.neoforged.neoforge.attachment.AttachmentType;
 import net.neoforged.neoforge.common.NeoForge;
 import net.neoforged.neoforge.registries.DeferredBlock;
 import net.neoforged.neoforge.registries.DeferredHolder;
 import net.neoforged.neoforge.registries.DeferredItem;
 import net.neoforged.neoforge.registries.DeferredRegister;
+import net.neoforged.neoforge.registries.NeoForgeRegistries;
 import org.slf4j.Logger;
 
 @Mod(MCFluidDynamicsV2Mod.MODID)
@@ -30,6 +38,8 @@ public class MCFluidDynamicsV2Mod {
     public static final DeferredRegister.Items ITEMS = DeferredRegister.createItems(MODID);
     public static final DeferredRegister<BlockEntityType<?>> BLOCK_ENTITIES =
             DeferredRegister.create(Registries.BLOCK_ENTITY_TYPE, MODID);
+    public static final DeferredRegister<AttachmentType<?>> ATTACHMENT_TYPES =
+            DeferredRegister.create(NeoForgeRegistries.Keys.ATTACHMENT_TYPES, MODID);
 
     public static final DeferredBlock<Block> COLORED_SOLID_BLOCK =
             BLOCKS.register("colored_solid", ColoredSolidBlock::new);
@@ -47,6 +57,10 @@ public class MCFluidDynamicsV2Mod {
             BLOCK_ENTITIES.register("fluid_voxel",
                     () -> BlockEntityType.Builder.of(FluidVoxelBlockEntity::new, FLUID_VOXEL_BLOCK.get()).build(null));
 
+    public static final DeferredHolder<AttachmentType<?>, AttachmentType<FluidChunkData>> FLUID_CHUNK_DATA =
+            ATTACHMENT_TYPES.register("fluid_chunk",
+                    () -> AttachmentType.builder(FluidChunkData::new).serialize(FluidChunkData.SERIALIZER).build());
+
     /**
      * NeoForge will inject IEventBus and ModContainer automatically.
      * Keep this as your ONLY @Mod entrypoint for mcfluiddynamicsv2.
@@ -56,9 +70,26 @@ public class MCFluidDynamicsV2Mod {
         BLOCKS.register(modEventBus);
         ITEMS.register(modEventBus);
         BLOCK_ENTITIES.register(modEventBus);
+        ATTACHMENT_TYPES.register(modEventBus);
+        modEventBus.addListener(FluidNetwork::registerPayloads);
 
         // Game/event bus listeners
         NeoForge.EVENT_BUS.addListener(TickHandler::onServerTick);
+        NeoForge.EVENT_BUS.addListener(TickHandler::onLevelUnload);
+        NeoForge.EVENT_BUS.addListener(TickHandler::onServerStopped);
+        NeoForge.EVENT_BUS.addListener(FluidSimulator::onLevelTick);
+        NeoForge.EVENT_BUS.addListener(FluidSimulator::onNeighborNotify);
+        NeoForge.EVENT_BUS.addListener(FluidSimulator::onLevelUnload);
+        NeoForge.EVENT_BUS.addListener(FluidSimulator::onServerStopped);
+        NeoForge.EVENT_BUS.addListener(WorldFluidIndexProvider::onChunkLoad);
+        NeoForge.EVENT_BUS.addListener(WorldFluidIndexProvider::onChunkUnload);
+        NeoForge.EVENT_BUS.addListener(TemperatureField::onChunkLoad);
+        NeoForge.EVENT_BUS.addListener(TemperatureField::onChunkUnload);
+        NeoForge.EVENT_BUS.addListener(TemperatureField::onLevelUnload);
+        NeoForge.EVENT_BUS.addListener(TemperatureField::onServerStopped);
+        NeoForge.EVENT_BUS.addListener(FluidNetwork::onChunkWatch);
+        NeoForge.EVENT_BUS.addListener(ClientFluidStore::onChunkUnload);
+        NeoForge.EVENT_BUS.addListener(ClientFluidStore::onLevelUnload);
         NeoForge.EVENT_BUS.addListener(VoxelCommand::registerCommands);
 
         // Client-only: register config screen
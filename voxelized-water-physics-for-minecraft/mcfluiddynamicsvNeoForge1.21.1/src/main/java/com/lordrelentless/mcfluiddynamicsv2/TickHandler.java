@@ -5,47 +5,187 @@ import com.lordrelentless.mcfluiddynamicsv2.block.VoxelType;
 import com.lordrelentless.mcfluiddynamicsv2.blockentity.FluidVoxelBlockEntity;
 import com.lordrelentless.mcfluiddynamicsv2.capability.IWorldFluidIndex;
 import com.lordrelentless.mcfluiddynamicsv2.capability.WorldFluidIndexProvider;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSection;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSectionStore;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSimulator;
 import com.lordrelentless.mcfluiddynamicsv2.util.Config;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
 
 public final class TickHandler {
+    /** Voxels updated between budget checks. */
+    private static final int CHECK_BATCH = 64;
+    /** Ticks per phase sweep; every voxel is visited once per period. */
+    private static final int SWEEP_PERIOD = 5;
+
+    /** One phase sweep per dimension, each with its own budget. */
+    private static final Map<ResourceKey<Level>, PhaseSweep> SWEEPS = new HashMap<>();
+
     private TickHandler() {}
 
     public static void onServerTick(ServerTickEvent.Post event) {
         // NeoForge 1.21.1 has Post/Pre tick events; use Post so world state is stable.
-        ServerLevel level = event.getServer().overworld();
-        if (level == null) return;
+        for (ServerLevel level : event.getServer().getAllLevels()) {
+            SWEEPS.computeIfAbsent(level.dimension(), k -> new PhaseSweep()).tick(level);
+        }
+    }
+
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            SWEEPS.remove(serverLevel.dimension());
+        }
+    }
+
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SWEEPS.clear();
+    }
+
+    /** Positions the level's current phase sweep has not reached yet. */
+    public static int phaseBacklog(ServerLevel level) {
+        PhaseSweep sweep = SWEEPS.get(level.dimension());
+        return sweep == null ? 0 : sweep.backlog();
+    }
+
+    /** Ticks the level's current phase sweep has been running, 0 when idle. */
+    public static long phaseSweepAge(ServerLevel level) {
+        PhaseSweep sweep = SWEEPS.get(level.dimension());
+        return sweep == null || sweep.slot >= SWEEP_PERIOD ? 0 : level.getGameTime() - sweep.startTick;
+    }
+
+    /**
+     * A snapshot of one level's index split into {@link #SWEEP_PERIOD} slots by chunk, one slot per tick,
+     * so the cost is spread evenly over the period instead of landing on every fifth tick. A slot the
+     * budget cuts short carries over into the next tick.
+     */
+    private static final class PhaseSweep {
+        private final LongArrayList[] slots = newSlots();
+        private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        /** Slot being worked through; SWEEP_PERIOD once the sweep is done. */
+        private int slot = SWEEP_PERIOD;
+        private int cursor = 0;
+        private long startTick = 0;
 
-        IWorldFluidIndex index = WorldFluidIndexProvider.get(level);
+        // Fill scratch: the slot being filled and the last fluid section looked up
+        private LongArrayList target;
+        private FluidSectionStore store;
+        private long sectionKey;
+        private FluidSection section;
+        private final LongConsumer collect = this::collect;
 
-        // Run every 5 ticks to keep it cheap while you iterate on logic.
-        if ((level.getGameTime() % 5) != 0) return;
+        private void tick(ServerLevel level) {
+            long now = level.getGameTime();
+
+            // Start a new sweep at the top of the period once the last one has finished.
+            if (slot >= SWEEP_PERIOD) {
+                if ((now % SWEEP_PERIOD) != 0) return;
+                fill(WorldFluidIndexProvider.get(level), FluidSimulator.get(level).store());
+                slot = 0;
+                cursor = 0;
+                startTick = now;
+            }
 
-        List<BlockPos> positions = index.getFluidPositions();
-        for (BlockPos pos : positions) {
-            BlockState state = level.getBlockState(pos);
-            if (!(state.getBlock() instanceof FluidVoxelBlock)) continue;
+            // Slots up to this one are due; more than one only when an earlier tick ran out of budget
+            int due = (int) Math.min(SWEEP_PERIOD - 1, now - startTick);
+            long deadline = Config.PHASE_TICK_BUDGET_MS > 0
+                    ? System.nanoTime() + (long) (Config.PHASE_TICK_BUDGET_MS * 1.0e6) : Long.MAX_VALUE;
+            int updated = 0;
+            while (slot <= due) {
+                LongArrayList positions = slots[slot];
+                if (cursor >= positions.size()) {
+                    positions.clear();
+                    slot++;
+                    cursor = 0;
+                    continue;
+                }
+                updatePhase(level, pos.set(positions.getLong(cursor++)));
+                if (++updated % CHECK_BATCH == 0 && System.nanoTime() >= deadline) break;
+            }
+        }
 
-            float tempC = Config.getTemperatureC(level, pos);
+        /**
+         * Copies packed positions out of the index, whole chunks per slot; phase changes may move voxels.
+         * Cells of settled water bodies keep their type, so they are left out here rather than checked later.
+         */
+        private void fill(IWorldFluidIndex index, FluidSectionStore store) {
+            this.store = store;
+            sectionKey = Long.MIN_VALUE;
+            index.forEachLoadedChunk(chunkKey -> {
+                target = slots[Math.floorMod(HashCommon.mix(chunkKey), SWEEP_PERIOD)];
+                index.forEachInChunk(chunkKey, collect);
+            });
+            this.store = null;
+            target = null;
+            section = null;
+        }
 
-            VoxelType newType = typeFromTemp(tempC);
+        private void collect(long packed) {
+            int x = BlockPos.getX(packed);
+            int y = BlockPos.getY(packed);
+            int z = BlockPos.getZ(packed);
+            // A chunk's voxels mostly share a few sections, so look each one up once per run
+            long key = FluidSectionStore.sectionKeyAt(x, y, z);
+            if (key != sectionKey) {
+                sectionKey = key;
+                section = store.section(key);
+            }
+            if (section != null && section.bodyCells() > 0 && section.getBody(FluidSectionStore.indexAt(x, y, z)) > 0) return;
+            target.add(packed);
+        }
 
-            // Update BE cache + blockstate type
-            BlockEntity be = level.getBlockEntity(pos);
-            if (be instanceof FluidVoxelBlockEntity voxelBe) {
-                voxelBe.setCachedTemp(tempC);
-                voxelBe.tempTypeId = (byte) newType.ordinal();
+        private int backlog() {
+            int backlog = -cursor;
+            for (int i = slot; i < SWEEP_PERIOD; i++) {
+                backlog += slots[i].size();
             }
+            return Math.max(0, backlog);
+        }
 
-            if (state.hasProperty(FluidVoxelBlock.TYPE) && state.getValue(FluidVoxelBlock.TYPE) != newType) {
-                level.setBlock(pos, state.setValue(FluidVoxelBlock.TYPE, newType), 3);
+        private static LongArrayList[] newSlots() {
+            LongArrayList[] slots = new LongArrayList[SWEEP_PERIOD];
+            for (int i = 0; i < SWEEP_PERIOD; i++) {
+                slots[i] = new LongArrayList();
             }
+            return slots;
+        }
+    }
+
+    private static void updatePhase(ServerLevel level, BlockPos pos) {
+        // The chunk may have unloaded since the sweep started; don't load it back in
+        if (!level.isLoaded(pos)) return;
+
+        // Settled water bodies keep their type until something wakes them; this catches bodies formed mid-sweep
+        if (FluidSimulator.get(level).isInBody(pos)) return;
+
+        BlockState state = level.getBlockState(pos);
+        if (!(state.getBlock() instanceof FluidVoxelBlock)) return;
+
+        float tempC = Config.getTemperatureC(level, pos);
+
+        VoxelType newType = typeFromTemp(tempC);
+
+        // Update BE cache + blockstate type
+        BlockEntity be = level.getBlockEntity(pos);
+        if (be instanceof FluidVoxelBlockEntity voxelBe) {
+            voxelBe.setCachedTemp(tempC);
+            voxelBe.tempTypeId = (byte) newType.ordinal();
+        }
+
+        if (state.hasProperty(FluidVoxelBlock.TYPE) && state.getValue(FluidVoxelBlock.TYPE) != newType) {
+            level.setBlock(pos, state.setValue(FluidVoxelBlock.TYPE, newType), 3);
+            FluidSimulator.get(level).store().setType(pos.getX(), pos.getY(), pos.getZ(), newType.ordinal());
         }
     }
 
@@ -1,9 +1,9 @@
 package com.lordrelentless.mcfluiddynamicsv2.block;
 
-import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
 import com.lordrelentless.mcfluiddynamicsv2.blockentity.FluidVoxelBlockEntity;
 import com.lordrelentless.mcfluiddynamicsv2.capability.WorldFluidIndexProvider;
 import com.lordrelentless.mcfluiddynamicsv2.compat.CreateCompat;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSimulator;
 import com.mojang.serialization.MapCodec;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -18,8 +18,6 @@ import net.minecraft.world.level.block.BaseEntityBlock;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.entity.BlockEntity;
-import net.minecraft.world.level.block.entity.BlockEntityTicker;
-import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.EnumProperty;
@@ -183,12 +181,6 @@ public class FluidVoxelBlock extends BaseEntityBlock {
         return new FluidVoxelBlockEntity(pos, state);
     }
 
-    @Nullable
-    @Override
-    public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level level, BlockState state, BlockEntityType<T> type) {
-        return level.isClientSide ? null : createTickerHelper(type, MCFluidDynamicsV2Mod.FLUID_VOXEL_BE_TYPE.get(), FluidVoxelBlockEntity.SERVER_TICKER);
-    }
-
     @Override
     public void onPlace(BlockState state, Level level, BlockPos pos, BlockState oldState, boolean movedByPiston) {
         super.onPlace(state, level, pos, oldState, movedByPiston);
@@ -202,6 +194,7 @@ public class FluidVoxelBlock extends BaseEntityBlock {
     public void onRemove(BlockState state, Level level, BlockPos pos, BlockState newState, boolean movedByPiston) {
         if (!level.isClientSide && level instanceof ServerLevel serverLevel && state.getBlock() != newState.getBlock()) {
             WorldFluidIndexProvider.get(serverLevel).removeFluidPos(pos);
+            FluidSimulator.get(serverLevel).store().clearCell(pos.getX(), pos.getY(), pos.getZ());
         }
         super.onRemove(state, level, pos, newState, movedByPiston);
     }
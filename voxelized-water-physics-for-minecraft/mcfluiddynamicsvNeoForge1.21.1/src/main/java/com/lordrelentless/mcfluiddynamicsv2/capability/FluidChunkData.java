@@ -0,0 +1,37 @@
+package com.lordrelentless.mcfluiddynamicsv2.capability;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.neoforged.neoforge.attachment.IAttachmentHolder;
+import net.neoforged.neoforge.attachment.IAttachmentSerializer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A chunk's share of the fluid index, stored on the chunk as a data attachment so it is saved with the
+ * chunk, and only when the chunk itself is dirty. While the chunk is loaded its set is the index's
+ * resident shard for it.
+ */
+public final class FluidChunkData {
+    public static final IAttachmentSerializer<CompoundTag, FluidChunkData> SERIALIZER = new IAttachmentSerializer<>() {
+        @Override
+        public FluidChunkData read(IAttachmentHolder holder, CompoundTag tag, HolderLookup.Provider provider) {
+            FluidChunkData data = new FluidChunkData();
+            for (long packed : FluidIndexCodec.readChunk(tag)) {
+                data.cells.add(packed);
+            }
+            return data;
+        }
+
+        @Override
+        public @Nullable CompoundTag write(FluidChunkData attachment, HolderLookup.Provider provider) {
+            // Chunks without voxels don't carry the attachment at all
+            if (attachment.cells.isEmpty()) return null;
+            long[] packed = attachment.cells.toLongArray();
+            return FluidIndexCodec.writeChunk(FluidIndexShards.chunkKey(packed[0]), packed);
+        }
+    };
+
+    /** Packed {@link net.minecraft.core.BlockPos#asLong} positions of the chunk's voxels. */
+    final LongOpenHashSet cells = new LongOpenHashSet();
+}
@@ -0,0 +1,119 @@
+package com.lordrelentless.mcfluiddynamicsv2.capability;
+
+import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * NBT layout of the fluid index.
+ * <ul>
+ *     <li>Version 1 (no {@code FormatVersion}): one compound with X/Y/Z ints per position in {@code Positions}.</li>
+ *     <li>Version 2: one compound per chunk in {@code Chunks}, holding the chunk key and an int array of
+ *     chunk-relative cells, {@code y << 8 | localZ << 4 | localX}.</li>
+ * </ul>
+ * Reading accepts both; writing always produces the current version. Since chunks carry their own
+ * positions as {@link FluidChunkData} attachments, only shards that couldn't be attached (written while
+ * their chunk was unloaded, or migrated from an older save and not loaded since) go through here.
+ */
+final class FluidIndexCodec {
+    static final int FORMAT_VERSION = 2;
+
+    private FluidIndexCodec() {}
+
+    static void write(FluidIndexShards shards, CompoundTag tag) {
+        tag.putInt("FormatVersion", FORMAT_VERSION);
+
+        ListTag chunks = new ListTag();
+        shards.forEachWaitingShard((chunk, packed) -> chunks.add(writeChunk(chunk, packed)));
+        tag.put("Chunks", chunks);
+    }
+
+    /** One chunk's entry: its key and the chunk-relative cells of {@code packed}. */
+    static CompoundTag writeChunk(long chunk, long[] packed) {
+        int[] cells = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            cells[i] = cellIndex(packed[i]);
+        }
+        CompoundTag c = new CompoundTag();
+        c.putLong("Chunk", chunk);
+        c.putIntArray("Cells", cells);
+        return c;
+    }
+
+    /** Packed positions of one chunk's entry, sorted. */
+    static long[] readChunk(CompoundTag c) {
+        long chunk = c.getLong("Chunk");
+        int[] cells = c.getIntArray("Cells");
+        int baseX = ChunkPos.getX(chunk) << 4;
+        int baseZ = ChunkPos.getZ(chunk) << 4;
+        long[] packed = new long[cells.length];
+        for (int j = 0; j < cells.length; j++) {
+            int cell = cells[j];
+            packed[j] = BlockPos.asLong(baseX | (cell & 15), cell >> 8, baseZ | ((cell >> 4) & 15));
+        }
+        LongArrays.quickSort(packed);
+        return packed;
+    }
+
+    static void read(CompoundTag tag, FluidIndexShards shards) {
+        if (!tag.contains("FormatVersion", Tag.TAG_INT)) {
+            readLegacy(tag, shards);
+            return;
+        }
+
+        int version = tag.getInt("FormatVersion");
+        if (version > FORMAT_VERSION) {
+            MCFluidDynamicsV2Mod.LOGGER.warn("Fluid index was saved by a newer version (format {}), reading as {}",
+                    version, FORMAT_VERSION);
+        }
+
+        ListTag chunks = tag.getList("Chunks", Tag.TAG_COMPOUND);
+        for (int i = 0; i < chunks.size(); i++) {
+            CompoundTag c = chunks.getCompound(i);
+            long[] packed = readChunk(c);
+            if (packed.length == 0) continue;
+            shards.putWaiting(c.getLong("Chunk"), packed);
+        }
+    }
+
+    /** Version 1 layout; only the benchmark still writes it. */
+    static void writeLegacy(FluidIndexShards shards, CompoundTag tag) {
+        ListTag list = new ListTag();
+        shards.forEach(packed -> {
+            CompoundTag p = new CompoundTag();
+            p.putInt("X", BlockPos.getX(packed));
+            p.putInt("Y", BlockPos.getY(packed));
+            p.putInt("Z", BlockPos.getZ(packed));
+            list.add(p);
+        });
+        tag.put("Positions", list);
+    }
+
+    /** Nothing is known to be loaded yet, so every chunk's positions wait for it. */
+    private static void readLegacy(CompoundTag tag, FluidIndexShards shards) {
+        ListTag list = tag.getList("Positions", Tag.TAG_COMPOUND);
+        Long2ObjectOpenHashMap<LongArrayList> byChunk = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag p = list.getCompound(i);
+            long packed = BlockPos.asLong(p.getInt("X"), p.getInt("Y"), p.getInt("Z"));
+            byChunk.computeIfAbsent(FluidIndexShards.chunkKey(packed), k -> new LongArrayList()).add(packed);
+        }
+        for (Long2ObjectMap.Entry<LongArrayList> entry : byChunk.long2ObjectEntrySet()) {
+            long[] packed = entry.getValue().toLongArray();
+            LongArrays.quickSort(packed);
+            shards.putWaiting(entry.getLongKey(), packed);
+        }
+    }
+
+    /** Chunk-relative cell; y keeps its sign through the arithmetic shift on read. */
+    private static int cellIndex(long packed) {
+        return BlockPos.getY(packed) << 8 | (BlockPos.getZ(packed) & 15) << 4 | (BlockPos.getX(packed) & 15);
+    }
+}
@@ -0,0 +1,172 @@
+package com.lordrelentless.mcfluiddynamicsv2.capability;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Packed voxel positions sharded by chunk. A loaded chunk's shard is its attachment's hash set (see
+ * {@link #attach}) and only those are iterated by {@link #forEachLoadedChunk}. Positions whose chunk isn't
+ * loaded wait in a sorted {@code long[]} per chunk; that is only a compact in-memory form, saved with the
+ * level's data, and nothing here is written to disk on its own.
+ */
+final class FluidIndexShards {
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> resident = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<long[]> waiting = new Long2ObjectOpenHashMap<>();
+
+    static long chunkKey(long packed) {
+        return ChunkPos.asLong(BlockPos.getX(packed) >> 4, BlockPos.getZ(packed) >> 4);
+    }
+
+    /** Adds a voxel; false if it was already indexed. */
+    boolean add(long packed) {
+        long chunk = chunkKey(packed);
+        if (waiting.containsKey(chunk)) {
+            // Rare: something wrote into a chunk that isn't loaded. Keep the shard waiting.
+            return addWaiting(packed);
+        }
+        return resident.computeIfAbsent(chunk, k -> new LongOpenHashSet()).add(packed);
+    }
+
+    /** Adds a voxel to its chunk's waiting shard, creating one if needed. */
+    boolean addWaiting(long packed) {
+        long chunk = chunkKey(packed);
+        long[] sorted = waiting.get(chunk);
+        if (sorted == null) {
+            waiting.put(chunk, new long[] { packed });
+            return true;
+        }
+        int at = LongArrays.binarySearch(sorted, packed);
+        if (at >= 0) return false;
+        at = -at - 1;
+        long[] grown = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, grown, 0, at);
+        grown[at] = packed;
+        System.arraycopy(sorted, at, grown, at + 1, sorted.length - at);
+        waiting.put(chunk, grown);
+        return true;
+    }
+
+    /** Removes a voxel; false if it wasn't indexed. */
+    boolean remove(long packed) {
+        long chunk = chunkKey(packed);
+        LongOpenHashSet set = resident.get(chunk);
+        if (set != null) {
+            if (!set.remove(packed)) return false;
+            if (set.isEmpty()) {
+                resident.remove(chunk);
+            }
+            return true;
+        }
+
+        long[] sorted = waiting.get(chunk);
+        if (sorted == null) return false;
+        int at = LongArrays.binarySearch(sorted, packed);
+        if (at < 0) return false;
+        if (sorted.length == 1) {
+            waiting.remove(chunk);
+        } else {
+            long[] shrunk = new long[sorted.length - 1];
+            System.arraycopy(sorted, 0, shrunk, 0, at);
+            System.arraycopy(sorted, at + 1, shrunk, at, shrunk.length - at);
+            waiting.put(chunk, shrunk);
+        }
+        return true;
+    }
+
+    /**
+     * Makes {@code cells} the chunk's resident shard, owned by the caller (a chunk attachment), folding in
+     * any positions waiting for it. True if positions were folded in.
+     */
+    boolean attach(long chunk, LongOpenHashSet cells) {
+        resident.put(chunk, cells);
+        long[] sorted = waiting.remove(chunk);
+        if (sorted == null) return false;
+        for (long packed : sorted) {
+            cells.add(packed);
+        }
+        return true;
+    }
+
+    /** Drops an attached shard; its owner keeps the positions and saves them with the chunk. */
+    void detach(long chunk) {
+        resident.remove(chunk);
+    }
+
+    /** The chunk's resident shard, or null. */
+    LongOpenHashSet resident(long chunk) {
+        return resident.get(chunk);
+    }
+
+    void forEachInChunk(long chunk, LongConsumer action) {
+        LongOpenHashSet set = resident.get(chunk);
+        if (set != null) {
+            set.forEach(action);
+            return;
+        }
+        long[] sorted = waiting.get(chunk);
+        if (sorted != null) {
+            for (long packed : sorted) {
+                action.accept(packed);
+            }
+        }
+    }
+
+    void forEachLoadedChunk(LongConsumer action) {
+        resident.keySet().forEach(action);
+    }
+
+    /** Every indexed voxel, resident or waiting. */
+    void forEach(LongConsumer action) {
+        for (LongOpenHashSet set : resident.values()) {
+            set.forEach(action);
+        }
+        for (long[] sorted : waiting.values()) {
+            for (long packed : sorted) {
+                action.accept(packed);
+            }
+        }
+    }
+
+    int countInChunk(long chunk) {
+        LongOpenHashSet set = resident.get(chunk);
+        if (set != null) return set.size();
+        long[] sorted = waiting.get(chunk);
+        return sorted == null ? 0 : sorted.length;
+    }
+
+    int loadedChunks() {
+        return resident.size();
+    }
+
+    /** Keys of chunks with waiting positions, for resyncing against the chunks that are actually loaded. */
+    long[] waitingChunks() {
+        return waiting.keySet().toLongArray();
+    }
+
+    int waitingCount() {
+        return waiting.size();
+    }
+
+    /** Restores a saved shard, waiting until its chunk loads; {@code packed} must be sorted. */
+    void putWaiting(long chunk, long[] packed) {
+        waiting.put(chunk, packed);
+    }
+
+    /** Waiting shards as sorted arrays, for saving. */
+    void forEachWaitingShard(ShardConsumer action) {
+        for (Long2ObjectMap.Entry<long[]> entry : waiting.long2ObjectEntrySet()) {
+            action.accept(entry.getLongKey(), entry.getValue());
+        }
+    }
+
+    @FunctionalInterface
+    interface ShardConsumer {
+        void accept(long chunk, long[] packed);
+    }
+}
@@ -1,14 +1,49 @@
 package com.lordrelentless.mcfluiddynamicsv2.capability;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.ChunkAccess;
 
 import java.util.List;
+import java.util.function.LongConsumer;
 
 public interface IWorldFluidIndex {
     void addFluidPos(BlockPos pos);
     void removeFluidPos(BlockPos pos);
+
+    /**
+     * A copy of every indexed position in loaded chunks, plus waiting ones; prefer the forEach methods,
+     * which don't allocate.
+     */
     List<BlockPos> getFluidPositions();
 
+    /**
+     * Calls {@code action} with the packed {@link BlockPos#asLong} of every indexed voxel in the chunk.
+     * The index must not be changed from inside {@code action}; collect first if the work may move voxels.
+     */
+    default void forEachInChunk(ChunkPos chunk, LongConsumer action) {
+        forEachInChunk(chunk.toLong(), action);
+    }
+
+    /** {@link #forEachInChunk(ChunkPos, LongConsumer)} by packed {@link ChunkPos#toLong}, as {@link #forEachLoadedChunk} hands it out. */
+    void forEachInChunk(long chunkKey, LongConsumer action);
+
+    /** Calls {@code action} with the packed {@link ChunkPos#toLong} of every loaded chunk holding indexed voxels. */
+    void forEachLoadedChunk(LongConsumer action);
+
+    int countInChunk(ChunkPos chunk);
+
+    /** Makes the chunk's stored voxels resident; called when the chunk loads. */
+    void chunkLoaded(ChunkAccess chunk);
+
+    /** Drops the chunk's voxels from the iterated set, leaving them stored with the chunk; called when it unloads. */
+    void chunkUnloaded(ChunkPos chunk);
+
+    int loadedChunkCount();
+
+    /** Chunks with positions held by the level rather than the chunk, waiting for the chunk to load. */
+    int waitingChunkCount();
+
     int getAndIncrementWeatherCounter();
     void resetWeatherCounter();
 }
\ No newline at end of file
@@ -1,22 +1,25 @@
 package com.lordrelentless.mcfluiddynamicsv2.capability;
 
 import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.Tag;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.saveddata.SavedData;
+import net.neoforged.neoforge.event.level.ChunkEvent;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.function.LongConsumer;
 
 /**
- * World-persistent storage for voxel-fluid positions (SavedData).
- * This avoids loader-specific capability boilerplate and compiles cleanly on NeoForge 1.21.1.
+ * World-persistent storage for voxel-fluid positions. Each chunk keeps its own positions in a
+ * {@link FluidChunkData} attachment, saved with the chunk; the level's SavedData only holds the weather
+ * counter and positions that have no loaded chunk to live in yet.
  */
 public final class WorldFluidIndexProvider {
     private static final String DATA_NAME = MCFluidDynamicsV2Mod.MODID + "_fluid_index";
@@ -24,15 +27,34 @@ public final class WorldFluidIndexProvider {
     private WorldFluidIndexProvider() {}
 
     public static IWorldFluidIndex get(ServerLevel level) {
-        return level.getDataStorage().computeIfAbsent(WorldFluidIndexSavedData.FACTORY, DATA_NAME);
+        WorldFluidIndexSavedData data = level.getDataStorage().computeIfAbsent(WorldFluidIndexSavedData.FACTORY, DATA_NAME);
+        if (data.level == null) {
+            data.syncLoadedChunks(level);
+        }
+        return data;
+    }
+
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            get(serverLevel).chunkLoaded(event.getChunk());
+        }
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            get(serverLevel).chunkUnloaded(event.getChunk().getPos());
+        }
     }
 
     private static final class WorldFluidIndexSavedData extends SavedData implements IWorldFluidIndex {
         static final Factory<WorldFluidIndexSavedData> FACTORY =
                 new Factory<>(WorldFluidIndexSavedData::new, WorldFluidIndexSavedData::load);
 
-        private final Set<BlockPos> positions = new HashSet<>();
+        /** Loaded chunks' attachments as resident shards; positions whose chunk isn't loaded as waiting ones. */
+        private final FluidIndexShards shards = new FluidIndexShards();
         private int weatherTickCounter = 0;
+        /** Null until the first {@link #get}, which also attaches chunks that loaded before this data was read. */
+        private ServerLevel level;
 
         private WorldFluidIndexSavedData() {}
 
@@ -40,11 +62,9 @@ public final class WorldFluidIndexProvider {
             WorldFluidIndexSavedData data = new WorldFluidIndexSavedData();
             data.weatherTickCounter = tag.getInt("WeatherTickCounter");
 
-            ListTag list = tag.getList("Positions", Tag.TAG_COMPOUND);
-            for (int i = 0; i < list.size(); i++) {
-                CompoundTag p = list.getCompound(i);
-                data.positions.add(new BlockPos(p.getInt("X"), p.getInt("Y"), p.getInt("Z")));
-            }
+            // Positions saved before chunks carried their own, or written while their chunk was unloaded;
+            // each chunk takes its share into its attachment the next time it loads
+            FluidIndexCodec.read(tag, data.shards);
 
             return data;
         }
@@ -53,36 +73,115 @@ public final class WorldFluidIndexProvider {
         public CompoundTag save(CompoundTag tag, HolderLookup.Provider registries) {
             tag.putInt("WeatherTickCounter", weatherTickCounter);
 
-            ListTag list = new ListTag();
-            for (BlockPos pos : positions) {
-                CompoundTag p = new CompoundTag();
-                p.putInt("X", pos.getX());
-                p.putInt("Y", pos.getY());
-                p.putInt("Z", pos.getZ());
-                list.add(p);
-            }
-            tag.put("Positions", list);
+            FluidIndexCodec.write(shards, tag);
 
             return tag;
         }
 
         @Override
         public void addFluidPos(BlockPos pos) {
-            if (positions.add(pos.immutable())) {
-                this.setDirty();
+            long packed = pos.asLong();
+            LevelChunk chunk = level.getChunkSource().getChunkNow(pos.getX() >> 4, pos.getZ() >> 4);
+            if (chunk == null) {
+                if (shards.addWaiting(packed)) {
+                    this.setDirty();
+                }
+                return;
+            }
+
+            attach(chunk, true);
+            if (shards.add(packed)) {
+                chunk.setUnsaved(true);
             }
         }
 
         @Override
         public void removeFluidPos(BlockPos pos) {
-            if (positions.remove(pos)) {
+            long packed = pos.asLong();
+            LevelChunk chunk = level.getChunkSource().getChunkNow(pos.getX() >> 4, pos.getZ() >> 4);
+            if (chunk == null) {
+                if (shards.remove(packed)) {
+                    this.setDirty();
+                }
+                return;
+            }
+
+            attach(chunk, false);
+            if (shards.remove(packed)) {
+                chunk.setUnsaved(true);
+            }
+        }
+
+        /**
+         * Makes the chunk's attachment its resident shard, creating the attachment only if {@code create}
+         * or there are waiting positions to move into it.
+         */
+        private void attach(ChunkAccess chunk, boolean create) {
+            long key = chunk.getPos().toLong();
+            if (!create && !chunk.hasData(MCFluidDynamicsV2Mod.FLUID_CHUNK_DATA) && shards.countInChunk(key) == 0) {
+                return;
+            }
+            LongOpenHashSet cells = chunk.getData(MCFluidDynamicsV2Mod.FLUID_CHUNK_DATA).cells;
+            if (shards.resident(key) == cells) return;
+            if (shards.attach(key, cells)) {
+                // The waiting positions now live in the chunk
+                chunk.setUnsaved(true);
                 this.setDirty();
             }
         }
 
         @Override
         public List<BlockPos> getFluidPositions() {
-            return new ArrayList<>(positions);
+            List<BlockPos> list = new ArrayList<>();
+            shards.forEach(packed -> list.add(BlockPos.of(packed)));
+            return list;
+        }
+
+        @Override
+        public void forEachInChunk(long chunkKey, LongConsumer action) {
+            shards.forEachInChunk(chunkKey, action);
+        }
+
+        @Override
+        public void forEachLoadedChunk(LongConsumer action) {
+            shards.forEachLoadedChunk(action);
+        }
+
+        @Override
+        public int countInChunk(ChunkPos chunk) {
+            return shards.countInChunk(chunk.toLong());
+        }
+
+        @Override
+        public void chunkLoaded(ChunkAccess chunk) {
+            attach(chunk, false);
+        }
+
+        @Override
+        public void chunkUnloaded(ChunkPos chunk) {
+            // The chunk saves its own positions
+            shards.detach(chunk.toLong());
+        }
+
+        @Override
+        public int loadedChunkCount() {
+            return shards.loadedChunks();
+        }
+
+        @Override
+        public int waitingChunkCount() {
+            return shards.waitingCount();
+        }
+
+        /** Attaches waiting positions to chunks that loaded before this data was first read from disk. */
+        private void syncLoadedChunks(ServerLevel level) {
+            this.level = level;
+            for (long key : shards.waitingChunks()) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(key), ChunkPos.getZ(key));
+                if (chunk != null) {
+                    attach(chunk, false);
+                }
+            }
         }
 
         @Override
@@ -0,0 +1,68 @@
+package com.lordrelentless.mcfluiddynamicsv2.client;
+
+import com.lordrelentless.mcfluiddynamicsv2.block.VoxelType;
+import com.lordrelentless.mcfluiddynamicsv2.network.FluidSectionPayload;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSection;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSectionStore;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.neoforged.neoforge.event.level.ChunkEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+
+/**
+ * The client's copy of fluid volume and type, filled from {@link FluidSectionPayload}s for the level the
+ * player is in. Values are packed as the payload sends them.
+ */
+public final class ClientFluidStore {
+    private static final Long2ObjectOpenHashMap<short[]> SECTIONS = new Long2ObjectOpenHashMap<>();
+
+    private ClientFluidStore() {}
+
+    public static void apply(FluidSectionPayload payload) {
+        long key = payload.section();
+        short[] cells;
+        if (payload.full()) {
+            if (payload.cells().length == 0) {
+                SECTIONS.remove(key);
+                return;
+            }
+            cells = new short[FluidSection.CELLS];
+            SECTIONS.put(key, cells);
+        } else {
+            cells = SECTIONS.computeIfAbsent(key, k -> new short[FluidSection.CELLS]);
+        }
+        payload.forEachCell((index, value) -> cells[index] = value);
+    }
+
+    /** Synced volume of the cell, or -1 if the server hasn't sent one for it. */
+    public static float volume(BlockPos pos) {
+        short[] cells = SECTIONS.get(FluidSectionStore.sectionKeyAt(pos.getX(), pos.getY(), pos.getZ()));
+        if (cells == null) return -1;
+        short value = cells[FluidSectionStore.indexAt(pos.getX(), pos.getY(), pos.getZ())];
+        return value == 0 ? -1 : (value & 0xFF) / 255.0f;
+    }
+
+    /** Synced type of the cell, or {@code fallback} if there is none. */
+    public static VoxelType type(BlockPos pos, VoxelType fallback) {
+        short[] cells = SECTIONS.get(FluidSectionStore.sectionKeyAt(pos.getX(), pos.getY(), pos.getZ()));
+        if (cells == null) return fallback;
+        short value = cells[FluidSectionStore.indexAt(pos.getX(), pos.getY(), pos.getZ())];
+        return value == 0 ? fallback : VoxelType.byId((value >>> 8) & 0xFF);
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (!event.getLevel().isClientSide()) return;
+
+        ChunkPos chunk = event.getChunk().getPos();
+        for (int sy = event.getLevel().getMinSection(); sy < event.getLevel().getMaxSection(); sy++) {
+            SECTIONS.remove(FluidSection.key(chunk.x, sy, chunk.z));
+        }
+    }
+
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel().isClientSide()) {
+            SECTIONS.clear();
+        }
+    }
+}
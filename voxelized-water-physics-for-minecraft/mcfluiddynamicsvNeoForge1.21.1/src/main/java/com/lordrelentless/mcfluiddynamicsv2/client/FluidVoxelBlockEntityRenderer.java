@@ -34,7 +34,9 @@ public class FluidVoxelBlockEntityRenderer implements BlockEntityRenderer<FluidV
 
         if (be.getLevel() == null) return;
 
-        VoxelType type = be.getTempType();
+        // Synced from the server when it has sent this section; the block entity's own fields otherwise
+        VoxelType type = ClientFluidStore.type(be.getBlockPos(), be.getTempType());
+        float volume = ClientFluidStore.volume(be.getBlockPos());
         float pressure = be.pressure;
         Vec3 velocity = new Vec3(be.vx, be.vy, be.vz);
         float temp = be.getCachedTemp();
@@ -86,6 +88,10 @@ public class FluidVoxelBlockEntityRenderer implements BlockEntityRenderer<FluidV
         float v1 = sprite.getV1();
 
         poseStack.pushPose();
+        if (volume > 0) {
+            // Fill height follows the volume, with a sliver kept so a trace of water still shows
+            poseStack.scale(1.0f, Math.max(volume, 1.0f / 16.0f), 1.0f);
+        }
         Matrix4f mat = poseStack.last().pose();
 
         // Use a no-cull translucent type so you can see faces from inside a tank while testing.
@@ -1,8 +1,19 @@
 package com.lordrelentless.mcfluiddynamicsv2.command;
 
 import com.lordrelentless.mcfluiddynamicsv2.Generators;
+import com.lordrelentless.mcfluiddynamicsv2.TickHandler;
+import com.lordrelentless.mcfluiddynamicsv2.block.VoxelType;
+import com.lordrelentless.mcfluiddynamicsv2.capability.IWorldFluidIndex;
+import com.lordrelentless.mcfluiddynamicsv2.capability.WorldFluidIndexProvider;
+import com.lordrelentless.mcfluiddynamicsv2.network.FluidSectionSync;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidLedger;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidMassMonitor;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSimulator;
+import com.lordrelentless.mcfluiddynamicsv2.sim.WaterBody;
 import com.lordrelentless.mcfluiddynamicsv2.util.Config;
+import com.lordrelentless.mcfluiddynamicsv2.util.TemperatureField;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.BoolArgumentType;
 import com.mojang.brigadier.arguments.FloatArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
@@ -18,7 +29,7 @@ import net.neoforged.neoforge.event.RegisterCommandsEvent;
 
 public final class VoxelCommand {
     private static final String[] GENERATORS = new String[] {
-            "eagle", "cat", "rabbit", "twins", "watertank", "terrain"
+            "eagle", "cat", "rabbit", "twins", "watertank", "terrain", "dambreak"
     };
 
     private VoxelCommand() {}
@@ -53,6 +64,79 @@ public final class VoxelCommand {
                                 .executes(VoxelCommand::setPrecip)
                         )
                 )
+
+                // /voxel sleep <ticks> (calm ticks before a voxel stops simulating)
+                .then(Commands.literal("sleep")
+                        .then(Commands.argument("ticks", IntegerArgumentType.integer(1, 255))
+                                .executes(VoxelCommand::setSleepTicks)
+                        )
+                )
+
+                // /voxel parallel <true|false> (compute fluid fluxes on worker threads)
+                .then(Commands.literal("parallel")
+                        .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                .executes(VoxelCommand::setParallel)
+                        )
+                )
+
+                // /voxel budget <ms> (fluid step time per tick, for each dimension, 0 = unbounded)
+                .then(Commands.literal("budget")
+                        .then(Commands.argument("ms", FloatArgumentType.floatArg(0f, 50f))
+                                .executes(VoxelCommand::setBudget)
+                        )
+                )
+
+                // /voxel lod off | /voxel lod <near> <mid> <interval> (distance tiers around players)
+                .then(Commands.literal("lod")
+                        .then(Commands.literal("off")
+                                .executes(VoxelCommand::disableLod)
+                        )
+                        .then(Commands.argument("near", IntegerArgumentType.integer(0, 1024))
+                                .then(Commands.argument("mid", IntegerArgumentType.integer(0, 1024))
+                                        .then(Commands.argument("interval", IntegerArgumentType.integer(1, 100))
+                                                .executes(VoxelCommand::setLod)
+                                        )
+                                )
+                        )
+                )
+
+                // /voxel lakes <true|false> (group settled water into water bodies)
+                .then(Commands.literal("lakes")
+                        .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                .executes(VoxelCommand::setLakeMode)
+                        )
+                )
+
+                // /voxel sync <true|false> (send fluid volume and type to clients)
+                .then(Commands.literal("sync")
+                        .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                .executes(VoxelCommand::setSync)
+                        )
+                )
+
+                // /voxel mass (fluid totals and growth for the current dimension)
+                // /voxel mass alarm <blocks/s> <cells/s> (growth that raises the alarm, 0 = off)
+                // /voxel mass throttle <ms> (fluid step budget while alarmed, 0 = log only)
+                .then(Commands.literal("mass")
+                        .executes(VoxelCommand::showMass)
+                        .then(Commands.literal("alarm")
+                                .then(Commands.argument("blocks", FloatArgumentType.floatArg(0f))
+                                        .then(Commands.argument("cells", IntegerArgumentType.integer(0))
+                                                .executes(VoxelCommand::setMassAlarm)
+                                        )
+                                )
+                        )
+                        .then(Commands.literal("throttle")
+                                .then(Commands.argument("ms", FloatArgumentType.floatArg(0f, 50f))
+                                        .executes(VoxelCommand::setMassThrottle)
+                                )
+                        )
+                )
+
+                // /voxel stats (simulation counters for the current dimension)
+                .then(Commands.literal("stats")
+                        .executes(VoxelCommand::showStats)
+                )
         );
     }
 
@@ -75,6 +159,7 @@ public final class VoxelCommand {
             case "twins" -> Generators.generateTwins(source, origin);
             case "watertank" -> Generators.generateWaterTank(source, origin);
             case "terrain" -> Generators.generateTerrain(source, origin);
+            case "dambreak" -> Generators.generateDamBreak(source, origin);
             default -> {
                 source.sendFailure(Component.literal("Unknown generator: " + name));
                 return 0;
@@ -94,6 +179,7 @@ public final class VoxelCommand {
     private static int setTempOffset(CommandContext<CommandSourceStack> context) {
         float value = FloatArgumentType.getFloat(context, "value");
         Config.TEMPERATURE_OFFSET_C = value;
+        FluidSimulator.dissolveAllBodies();
         context.getSource().sendSuccess(() -> Component.literal("Temperature offset set to " + value + "°C"), true);
         return 1;
     }
@@ -104,4 +190,141 @@ public final class VoxelCommand {
         context.getSource().sendSuccess(() -> Component.literal("Precipitation intensity set to " + value), true);
         return 1;
     }
-}
\ No newline at end of file
+
+    private static int setSleepTicks(CommandContext<CommandSourceStack> context) {
+        int value = IntegerArgumentType.getInteger(context, "ticks");
+        Config.SLEEP_AFTER_TICKS = value;
+        context.getSource().sendSuccess(() -> Component.literal("Voxels now sleep after " + value + " calm ticks"), true);
+        return 1;
+    }
+
+    private static int setParallel(CommandContext<CommandSourceStack> context) {
+        boolean value = BoolArgumentType.getBool(context, "enabled");
+        Config.PARALLEL_SIMULATION = value;
+        context.getSource().sendSuccess(() -> Component.literal("Parallel fluid simulation " + (value ? "enabled" : "disabled")), true);
+        return 1;
+    }
+
+    private static int setBudget(CommandContext<CommandSourceStack> context) {
+        float value = FloatArgumentType.getFloat(context, "ms");
+        Config.FLUID_TICK_BUDGET_MS = value;
+        context.getSource().sendSuccess(() -> Component.literal(value > 0
+                ? "Fluid tick budget set to " + value + " ms per dimension"
+                : "Fluid tick budget disabled"), true);
+        return 1;
+    }
+
+    private static int disableLod(CommandContext<CommandSourceStack> context) {
+        Config.LOD_ENABLED = false;
+        context.getSource().sendSuccess(() -> Component.literal("Fluid LOD disabled"), true);
+        return 1;
+    }
+
+    private static int setLod(CommandContext<CommandSourceStack> context) {
+        int near = IntegerArgumentType.getInteger(context, "near");
+        int mid = Math.max(near, IntegerArgumentType.getInteger(context, "mid"));
+        int interval = IntegerArgumentType.getInteger(context, "interval");
+        Config.LOD_ENABLED = true;
+        Config.LOD_NEAR_BLOCKS = near;
+        Config.LOD_MID_BLOCKS = mid;
+        Config.LOD_MID_INTERVAL = interval;
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Fluid LOD: every tick within " + near + " blocks, every " + interval + " ticks within " + mid
+                        + ", frozen beyond"), true);
+        return 1;
+    }
+
+    private static int setLakeMode(CommandContext<CommandSourceStack> context) {
+        boolean value = BoolArgumentType.getBool(context, "enabled");
+        Config.LAKE_MODE = value;
+        context.getSource().sendSuccess(() -> Component.literal("Lake mode " + (value ? "enabled" : "disabled")), true);
+        return 1;
+    }
+
+    private static int setSync(CommandContext<CommandSourceStack> context) {
+        boolean value = BoolArgumentType.getBool(context, "enabled");
+        Config.FLUID_SYNC = value;
+        context.getSource().sendSuccess(() -> Component.literal("Fluid client sync " + (value ? "enabled" : "disabled")), true);
+        return 1;
+    }
+
+    private static int showMass(CommandContext<CommandSourceStack> context) {
+        FluidMassMonitor mass = FluidSimulator.get(context.getSource().getLevel()).mass();
+        FluidLedger ledger = mass.ledger();
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Fluid in " + context.getSource().getLevel().dimension().location() + ": " + mass.summary()), false);
+        StringBuilder types = new StringBuilder("By type:");
+        for (VoxelType type : VoxelType.values()) {
+            types.append(' ').append(type.getSerializedName()).append(' ').append(ledger.typeCells(type.ordinal()));
+        }
+        context.getSource().sendSuccess(() -> Component.literal(types.toString()), false);
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Last tick: " + mass.createdLastTick() + " cells created, " + mass.destroyedLastTick() + " destroyed"), false);
+        context.getSource().sendSuccess(() -> Component.literal(String.format(
+                "Alarm at %.0f blocks/s or %d cells/s: %s", Config.MASS_ALARM_BLOCKS_PER_SECOND,
+                Config.MASS_ALARM_CELLS_PER_SECOND,
+                mass.throttled() ? "raised, step throttled to " + Config.MASS_THROTTLE_BUDGET_MS + " ms"
+                        : mass.alarmed() ? "raised" : "clear")), false);
+        return ledger.cells();
+    }
+
+    private static int setMassAlarm(CommandContext<CommandSourceStack> context) {
+        float blocks = FloatArgumentType.getFloat(context, "blocks");
+        int cells = IntegerArgumentType.getInteger(context, "cells");
+        Config.MASS_ALARM_BLOCKS_PER_SECOND = blocks;
+        Config.MASS_ALARM_CELLS_PER_SECOND = cells;
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Fluid mass alarm at " + blocks + " blocks/s or " + cells + " cells/s"), true);
+        return 1;
+    }
+
+    private static int setMassThrottle(CommandContext<CommandSourceStack> context) {
+        float value = FloatArgumentType.getFloat(context, "ms");
+        Config.MASS_THROTTLE_BUDGET_MS = value;
+        context.getSource().sendSuccess(() -> Component.literal(value > 0
+                ? "Fluid step throttled to " + value + " ms while the mass alarm is raised"
+                : "Fluid mass alarm no longer throttles the step"), true);
+        return 1;
+    }
+
+    private static int showStats(CommandContext<CommandSourceStack> context) {
+        FluidSimulator simulator = FluidSimulator.get(context.getSource().getLevel());
+        int active = simulator.activeCells();
+        int sleeping = simulator.sleepingCells();
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Fluid voxels in " + context.getSource().getLevel().dimension().location() + ": "
+                        + active + " active, " + sleeping + " sleeping"), false);
+        context.getSource().sendSuccess(() -> Component.literal(String.format(
+                "Last step: %.3f ms (compute %.3f ms, %s)",
+                simulator.lastStepNanos() / 1.0e6, simulator.lastComputeNanos() / 1.0e6,
+                simulator.lastStepParallel() ? "parallel" : "serial")), false);
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Block writes: " + simulator.lastBlockWrites() + " in " + simulator.lastDirtySections()
+                        + " sections, " + simulator.lastCoalescedWrites() + " coalesced"), false);
+        FluidSectionSync sync = simulator.sync();
+        context.getSource().sendSuccess(() -> Component.literal(String.format(
+                "Client sync: %d packets/s, %.1f KB/s, %d sections synced",
+                sync.packetsPerSecond(), sync.bytesPerSecond() / 1024.0, sync.syncedSections())), false);
+        WaterBody largest = simulator.largestBody();
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Water bodies: " + simulator.bodyCount() + " holding " + simulator.bodyCells() + " voxels"
+                        + (largest == null ? "" : String.format("; largest %d voxels, %.1f volume, surface y=%d",
+                        largest.cellCount(), largest.totalVolume(), largest.surfaceY()))), false);
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Tiers: " + simulator.tierCells(FluidSimulator.TIER_NEAR) + " near, "
+                        + simulator.tierCells(FluidSimulator.TIER_MID) + " mid, "
+                        + simulator.tierCells(FluidSimulator.TIER_FAR) + " far"), false);
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Backlog: " + simulator.backlogCells() + " cells, oldest waiting " + simulator.oldestPendingTicks()
+                        + " ticks; phase sweep " + TickHandler.phaseBacklog(context.getSource().getLevel()) + " voxels left after "
+                        + TickHandler.phaseSweepAge(context.getSource().getLevel()) + " ticks"), false);
+        IWorldFluidIndex index = WorldFluidIndexProvider.get(context.getSource().getLevel());
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Fluid index: " + index.loadedChunkCount() + " loaded chunks, " + index.waitingChunkCount()
+                        + " waiting for their chunk to load"), false);
+        context.getSource().sendSuccess(() -> Component.literal(
+                "Temperature cache: " + TemperatureField.get(context.getSource().getLevel()).cachedSections()
+                        + " sections"), false);
+        return active;
+    }
+}
@@ -0,0 +1,25 @@
+package com.lordrelentless.mcfluiddynamicsv2.network;
+
+import com.lordrelentless.mcfluiddynamicsv2.client.ClientFluidStore;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSimulator;
+import net.neoforged.neoforge.event.level.ChunkWatchEvent;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
+
+/** Payload registration and the server-side hooks of the fluid sync. */
+public final class FluidNetwork {
+    private static final String PROTOCOL_VERSION = "1";
+
+    private FluidNetwork() {}
+
+    public static void registerPayloads(RegisterPayloadHandlersEvent event) {
+        PayloadRegistrar registrar = event.registrar(PROTOCOL_VERSION);
+        // Handled on the client's main thread, the default for play payloads
+        registrar.playToClient(FluidSectionPayload.TYPE, FluidSectionPayload.STREAM_CODEC,
+                (payload, context) -> ClientFluidStore.apply(payload));
+    }
+
+    public static void onChunkWatch(ChunkWatchEvent.Watch event) {
+        FluidSimulator.get(event.getLevel()).sync().sendChunk(event.getPlayer(), event.getPos());
+    }
+}
@@ -0,0 +1,98 @@
+package com.lordrelentless.mcfluiddynamicsv2.network;
+
+import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fluid state of one chunk section for clients: changed cells as a bitmask plus one packed value per set
+ * bit, {@code type << 8 | volume} with the volume quantized to 0..255 (0 = no fluid).
+ *
+ * <p>{@code cells} holds a long of which 64-cell words are present, then each present word's cell bits,
+ * then the values in cell order. A delta changes only the listed cells; a full payload replaces the
+ * section, and an empty full payload drops it.
+ */
+public record FluidSectionPayload(long section, boolean full, byte[] cells) implements CustomPacketPayload {
+    public static final Type<FluidSectionPayload> TYPE =
+            new Type<>(ResourceLocation.fromNamespaceAndPath(MCFluidDynamicsV2Mod.MODID, "fluid_section"));
+
+    public static final StreamCodec<FriendlyByteBuf, FluidSectionPayload> STREAM_CODEC =
+            StreamCodec.ofMember(FluidSectionPayload::write, FluidSectionPayload::read);
+
+    private static final int WORDS = 64;
+
+    @Override
+    public Type<FluidSectionPayload> type() {
+        return TYPE;
+    }
+
+    private void write(FriendlyByteBuf buf) {
+        buf.writeLong(section);
+        buf.writeBoolean(full);
+        buf.writeByteArray(cells);
+    }
+
+    private static FluidSectionPayload read(FriendlyByteBuf buf) {
+        return new FluidSectionPayload(buf.readLong(), buf.readBoolean(), buf.readByteArray());
+    }
+
+    /** Bytes on the wire, ignoring the packet header. */
+    public int size() {
+        return Long.BYTES + 1 + FriendlyByteBuf.getVarIntSize(cells.length) + cells.length;
+    }
+
+    /**
+     * Encodes {@code count} values for the cells set in {@code changed} (64 words of cell bits), in cell order.
+     */
+    public static byte[] encode(long[] changed, short[] values, int count) {
+        long present = 0;
+        int words = 0;
+        for (int w = 0; w < WORDS; w++) {
+            if (changed[w] != 0) {
+                present |= 1L << w;
+                words++;
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(Long.BYTES * (1 + words) + Short.BYTES * count);
+        out.putLong(present);
+        for (int w = 0; w < WORDS; w++) {
+            if (changed[w] != 0) {
+                out.putLong(changed[w]);
+            }
+        }
+        for (int n = 0; n < count; n++) {
+            out.putShort(values[n]);
+        }
+        return out.array();
+    }
+
+    /** Calls {@code action} with every listed cell index and its packed value. */
+    public void forEachCell(CellConsumer action) {
+        if (cells.length == 0) return;
+
+        ByteBuffer in = ByteBuffer.wrap(cells);
+        long present = in.getLong();
+        long[] words = new long[Long.bitCount(present)];
+        for (int n = 0; n < words.length; n++) {
+            words[n] = in.getLong();
+        }
+
+        int n = 0;
+        for (long bits = present; bits != 0; bits &= bits - 1) {
+            int base = Long.numberOfTrailingZeros(bits) << 6;
+            for (long cell = words[n++]; cell != 0; cell &= cell - 1) {
+                action.accept(base + Long.numberOfTrailingZeros(cell), in.getShort());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(int index, short value);
+    }
+}
@@ -0,0 +1,167 @@
+package com.lordrelentless.mcfluiddynamicsv2.network;
+
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSection;
+import com.lordrelentless.mcfluiddynamicsv2.sim.FluidSectionStore;
+import com.lordrelentless.mcfluiddynamicsv2.util.Config;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.neoforged.neoforge.network.PacketDistributor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends one level's fluid state to the players tracking it, at most one {@link FluidSectionPayload} per
+ * changed section per tick. What each section was last sent as is kept quantized, so a tick only
+ * sends the cells whose quantized volume or type moved, and a player that starts tracking a chunk
+ * gets that same state in full.
+ */
+public final class FluidSectionSync {
+    private static final int CELLS = FluidSection.CELLS;
+    private static final int TICKS_PER_SECOND = 20;
+
+    private final ServerLevel level;
+    private final FluidSectionStore store;
+    /** Section key to the packed value of each cell as clients last received it. */
+    private final Long2ObjectOpenHashMap<short[]> sent = new Long2ObjectOpenHashMap<>();
+
+    // Scratch for one section's delta
+    private final long[] changed = new long[CELLS >> 6];
+    private final short[] values = new short[CELLS];
+
+    // Traffic, counted per recipient over whole seconds of game time
+    private long window = -1;
+    private int packets;
+    private long bytes;
+    private int lastPackets;
+    private long lastBytes;
+
+    public FluidSectionSync(ServerLevel level, FluidSectionStore store) {
+        this.level = level;
+        this.store = store;
+    }
+
+    /** Packed value of a cell as clients see it, from its volume in {@link FluidSection#FULL} units. */
+    public static short pack(int volume, int typeId) {
+        if (volume <= 0) return 0;
+        // Keep a trace of fluid visible even when it rounds down to nothing
+        int quantized = Math.max(1, Math.min(255, (volume * 255 + FluidSection.FULL / 2) / FluidSection.FULL));
+        return (short) (typeId << 8 | quantized);
+    }
+
+    /** Sends this tick's changes; call once per tick after the fluid step. */
+    public void flush() {
+        long second = level.getGameTime() / TICKS_PER_SECOND;
+        if (second != window) {
+            window = second;
+            lastPackets = packets;
+            lastBytes = bytes;
+            packets = 0;
+            bytes = 0;
+        }
+        LongArrayList dropped = store.droppedSections();
+        if (!Config.FLUID_SYNC) {
+            dropped.clear();
+            return;
+        }
+
+        for (int n = 0; n < dropped.size(); n++) {
+            long key = dropped.getLong(n);
+            // It may have filled up again in the same tick; then it is sent as a delta below
+            if (store.section(key) == null && sent.remove(key) != null) {
+                send(key, new FluidSectionPayload(key, true, new byte[0]));
+            }
+        }
+        dropped.clear();
+
+        for (Long2ObjectMap.Entry<FluidSection> entry : store.sections().long2ObjectEntrySet()) {
+            FluidSection section = entry.getValue();
+            if (section.takeSyncDirty()) {
+                sendDelta(entry.getLongKey(), section);
+            }
+        }
+    }
+
+    private void sendDelta(long key, FluidSection section) {
+        short[] last = sent.get(key);
+        if (last == null) {
+            last = new short[CELLS];
+            sent.put(key, last);
+        }
+
+        Arrays.fill(changed, 0L);
+        int count = 0;
+        for (int i = 0; i < CELLS; i++) {
+            short value = pack(section.volume[i], section.type[i]);
+            if (value != last[i]) {
+                last[i] = value;
+                changed[i >>> 6] |= 1L << i;
+                values[count++] = value;
+            }
+        }
+        if (count == 0) return;
+
+        // Encoded only when someone is watching; the sent state still has to move on either way
+        List<ServerPlayer> players = trackingPlayers(key);
+        if (players.isEmpty()) return;
+        FluidSectionPayload payload = new FluidSectionPayload(key, false, FluidSectionPayload.encode(changed, values, count));
+        for (ServerPlayer player : players) {
+            sendTo(player, payload);
+        }
+    }
+
+    /** Sends every synced section of a chunk in full to a player that just started tracking it. */
+    public void sendChunk(ServerPlayer player, ChunkPos chunk) {
+        if (!Config.FLUID_SYNC) return;
+
+        for (int sy = level.getMinSection(); sy < level.getMaxSection(); sy++) {
+            long key = FluidSection.key(chunk.x, sy, chunk.z);
+            short[] last = sent.get(key);
+            if (last == null) continue;
+
+            Arrays.fill(changed, 0L);
+            int count = 0;
+            for (int i = 0; i < CELLS; i++) {
+                if (last[i] != 0) {
+                    changed[i >>> 6] |= 1L << i;
+                    values[count++] = last[i];
+                }
+            }
+            sendTo(player, new FluidSectionPayload(key, true, FluidSectionPayload.encode(changed, values, count)));
+        }
+    }
+
+    private void send(long key, FluidSectionPayload payload) {
+        for (ServerPlayer player : trackingPlayers(key)) {
+            sendTo(player, payload);
+        }
+    }
+
+    private void sendTo(ServerPlayer player, FluidSectionPayload payload) {
+        PacketDistributor.sendToPlayer(player, payload);
+        packets++;
+        bytes += payload.size();
+    }
+
+    private List<ServerPlayer> trackingPlayers(long key) {
+        ChunkPos chunk = new ChunkPos(FluidSection.keyX(key), FluidSection.keyZ(key));
+        return level.getChunkSource().chunkMap.getPlayers(chunk, false);
+    }
+
+    /** Payloads sent over the last whole second, counting each recipient. */
+    public int packetsPerSecond() {
+        return lastPackets;
+    }
+
+    public long bytesPerSecond() {
+        return lastBytes;
+    }
+
+    public int syncedSections() {
+        return sent.size();
+    }
+}
@@ -0,0 +1,127 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import com.lordrelentless.mcfluiddynamicsv2.block.FluidVoxelBlock;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Block changes made by the fluid step, held until the end of the tick. A later write to a position
+ * replaces the earlier one, so a place followed by a remove (or the reverse) costs at most one setBlock.
+ *
+ * <p>Changes are applied sorted by chunk section with {@link #FLAGS}. Vanilla collects UPDATE_CLIENTS
+ * changes per section and sends them as one packet per dirty section when the chunk map broadcasts.
+ */
+final class BlockMutationQueue {
+    /** Client sync only: the simulator wakes its own cells, so neighbour and shape updates are skipped. */
+    static final int FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+    private static final BlockState REMOVED = Blocks.AIR.defaultBlockState();
+
+    private final Long2ObjectOpenHashMap<BlockState> pending = new Long2ObjectOpenHashMap<>();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private long[] order = new long[64];
+
+    // Last flush
+    private int coalesced;
+    private int lastWrites;
+    private int lastSections;
+    private int lastCoalesced;
+
+    void place(int x, int y, int z, BlockState state) {
+        record(BlockPos.asLong(x, y, z), state);
+    }
+
+    void remove(int x, int y, int z) {
+        record(BlockPos.asLong(x, y, z), REMOVED);
+    }
+
+    private void record(long pos, BlockState state) {
+        if (pending.put(pos, state) != null) {
+            coalesced++;
+        }
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Applies every queued change in chunk-section order.
+     *
+     * @param rejected called with the packed position of a placement the world no longer has room for
+     */
+    void flush(ServerLevel level, LongConsumer rejected) {
+        int count = pending.size();
+        lastWrites = 0;
+        lastSections = 0;
+        lastCoalesced = coalesced;
+        coalesced = 0;
+        if (count == 0) return;
+
+        if (order.length < count) {
+            order = new long[Math.max(count, order.length * 2)];
+        }
+        int n = 0;
+        for (Long2ObjectMap.Entry<BlockState> entry : pending.long2ObjectEntrySet()) {
+            order[n++] = entry.getLongKey();
+        }
+        LongArrays.quickSort(order, 0, count, (a, b) -> Long.compare(sectionOf(a), sectionOf(b)));
+
+        long section = 0;
+        for (int k = 0; k < count; k++) {
+            long pos = order[k];
+            BlockState target = pending.get(pos);
+            cursor.set(BlockPos.getX(pos), BlockPos.getY(pos), BlockPos.getZ(pos));
+            BlockState current = level.getBlockState(cursor);
+            if (current == target) continue;
+
+            boolean write;
+            if (target == REMOVED) {
+                // Only take away our own voxel; something else may have been placed there since
+                write = current.getBlock() instanceof FluidVoxelBlock;
+            } else {
+                write = current.isAir() || current.canBeReplaced();
+                if (!write) {
+                    rejected.accept(pos);
+                }
+            }
+
+            if (write && level.setBlock(cursor, target, FLAGS)) {
+                lastWrites++;
+                long writtenSection = sectionOf(pos);
+                if (lastWrites == 1 || writtenSection != section) {
+                    section = writtenSection;
+                    lastSections++;
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private static long sectionOf(long pos) {
+        return SectionPos.asLong(
+                SectionPos.blockToSectionCoord(BlockPos.getX(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getY(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getZ(pos)));
+    }
+
+    int lastWrites() {
+        return lastWrites;
+    }
+
+    int lastSections() {
+        return lastSections;
+    }
+
+    int lastCoalesced() {
+        return lastCoalesced;
+    }
+}
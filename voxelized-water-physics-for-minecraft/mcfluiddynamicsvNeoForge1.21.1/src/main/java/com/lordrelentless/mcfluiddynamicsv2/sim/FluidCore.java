@@ -0,0 +1,756 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import static com.lordrelentless.mcfluiddynamicsv2.sim.FluxBuffer.*;
+
+/**
+ * The fluid step, free of Minecraft types: the sections of a {@link FluidSectionStore} stepped against a
+ * {@link FluidWorldView} that answers block questions and takes the block writes. {@link FluidSimulator}
+ * runs one per level on a {@link LevelFluidView}; tests and benchmarks run one on an {@link InMemoryFluidView}.
+ *
+ * <p>A step is Jacobi-style: every active cell computes its outflows from the previous tick's volumes
+ * into a {@link FluxBuffer}, then all buffers are applied in sorted section order. No cell sees a
+ * neighbour's update from the same tick, so the result does not depend on visiting order.
+ *
+ * <p>Volumes are whole {@link FluidSection#FULL} units and every flux moves whole units, so a step
+ * neither creates nor loses water. Cells left below {@link TransferKernel#MIN_FLOW_VOLUME} hand their volume
+ * to fluid neighbours of their type with room for it, or stay behind as a still residue. A new cell the world
+ * has no room for gives its volume back to the cells that poured into it, re-creating any the step emptied.
+ *
+ * <p>Sections are computed in batches under a time budget, then everything computed is applied at once.
+ * When the budget runs out the sections not reached wait, whole, for the next tick, which starts after
+ * the last section stepped. The budget bounds the compute pass; applying what was computed always finishes.
+ *
+ * <p>With {@link FluidSettings#lodEnabled} sections are tiered by distance to the nearest observer: near ones step
+ * every tick, mid ones every few ticks with a faster equalize rate, far ones are frozen. With no observers at
+ * all every section is mid.
+ *
+ * <p>Settled connected water is grouped into {@link WaterBody} records by a {@link WaterBodyTracker}.
+ *
+ * <p>With {@link FluidSettings#parallel} the compute pass is split across a fork/join pool, one
+ * section per tile. Applying the fluxes and every write to the view stay on the calling thread.
+ */
+public final class FluidCore {
+    /** Distance tiers, see {@link FluidSettings#lodNearBlocks}. */
+    public static final int TIER_NEAR = 0, TIER_MID = 1, TIER_FAR = 2;
+
+    private static final int MIN_FLOW_VOLUME = TransferKernel.MIN_FLOW_VOLUME;
+    private static final int EQUALIZE_RATE = TransferKernel.EQUALIZE_RATE;
+    private static final int SUPPORT_VOLUME = TransferKernel.SUPPORT_VOLUME;
+    /** Sections per fork/join leaf task. */
+    private static final int SECTIONS_PER_TASK = 2;
+    /** Sections stepped between budget checks. */
+    private static final int BATCH_SECTIONS = 32;
+
+    private static ForkJoinPool computePool;
+
+    private final FluidSectionStore store;
+    private final FluidWorldView view;
+    private final TransferKernel kernel;
+    private final FluidSettings settings;
+    private final WaterBodyTracker bodies;
+    private final LongArrayList rejected = new LongArrayList();
+    private final LongConsumer rejectPlacement = rejected::add;
+
+    // Round-robin position: the last section stepped, so a budgeted tick resumes after it
+    private long cursorKey = Long.MIN_VALUE;
+
+    // Timing, nanoseconds
+    private long lastStepNanos;
+    private long lastComputeNanos;
+    private boolean lastStepParallel;
+
+    // Distance tiers: observer positions for this tick and fluid cells per tier
+    private double[] playerX = new double[8];
+    private double[] playerZ = new double[8];
+    private int playerCount;
+    private final int[] tierCells = new int[3];
+
+    // Backlog left by the tick budget
+    private int backlogCells;
+    private long oldestPendingTicks;
+
+    // Volume neither the world nor any cell had room for, since last taken
+    private long strandedVolume;
+
+    // Per-step scratch
+    private final ArrayDeque<FluxBuffer> fluxPool = new ArrayDeque<>();
+    private long[] stepKeys = new long[64];
+    private FluidSection[] stepSections = new FluidSection[64];
+    private FluxBuffer[] stepFlux = new FluxBuffer[64];
+    private int[] stepRates = new int[64];
+    private final Long2IntOpenHashMap pendingVolume = new Long2IntOpenHashMap();
+    // Per new cell: type << 8 | directions it was filled along (bit 3 + d) | the first of them
+    private final Long2IntOpenHashMap pendingSource = new Long2IntOpenHashMap();
+    private final Long2IntOpenHashMap inflow = new Long2IntOpenHashMap();
+
+    /** A core with the vector kernel if the JVM provides it, otherwise the scalar one. */
+    public FluidCore(FluidSectionStore store, FluidWorldView view, FluidSettings settings) {
+        this(store, view, TransferKernel.create(true, e -> {}), settings);
+    }
+
+    FluidCore(FluidSectionStore store, FluidWorldView view, TransferKernel kernel, FluidSettings settings) {
+        this.store = store;
+        this.view = view;
+        this.kernel = kernel;
+        this.settings = settings;
+        this.bodies = new WaterBodyTracker(store, settings);
+    }
+
+    private static ForkJoinPool computePool(int threads) {
+        if (computePool == null) {
+            ClassLoader modLoader = FluidCore.class.getClassLoader();
+            computePool = new ForkJoinPool(Math.max(1, threads), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("mcfluiddynamicsv2-sim-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(modLoader); // worker threads default to the system loader
+                return thread;
+            }, null, false);
+        }
+        return computePool;
+    }
+
+    /** Stops the shared compute pool; the next parallel step starts a new one. */
+    public static void shutdownPool() {
+        if (computePool != null) {
+            computePool.shutdown();
+            computePool = null;
+        }
+    }
+
+    public FluidSectionStore store() {
+        return store;
+    }
+
+    /** The tuning this core reads as it steps; changes apply from the next tick. */
+    public FluidSettings settings() {
+        return settings;
+    }
+
+    public FluidWorldView view() {
+        return view;
+    }
+
+    public long lastStepNanos() {
+        return lastStepNanos;
+    }
+
+    public long lastComputeNanos() {
+        return lastComputeNanos;
+    }
+
+    public boolean lastStepParallel() {
+        return lastStepParallel;
+    }
+
+    /**
+     * Volume dropped since the last call because the world turned a placement down and neither its sources
+     * nor the fluid around it had room. Only a world that changes during the flush gets here.
+     */
+    public long takeStrandedVolume() {
+        long volume = strandedVolume;
+        strandedVolume = 0;
+        return volume;
+    }
+
+    /** Fluid cells in a distance tier as of the last tick. */
+    public int tierCells(int tier) {
+        return tierCells[tier];
+    }
+
+    public int backlogCells() {
+        return backlogCells;
+    }
+
+    public long oldestPendingTicks() {
+        return oldestPendingTicks;
+    }
+
+    /** True if the cell belongs to a settled water body, which per-voxel passes can skip. */
+    public boolean isInBody(int x, int y, int z) {
+        return store.bodyAt(x, y, z) > 0;
+    }
+
+    public int bodyCount() {
+        return bodies.bodyCount();
+    }
+
+    public int bodyCells() {
+        return bodies.bodyCells();
+    }
+
+    /** The water body with the most cells, or null. */
+    public WaterBody largestBody() {
+        return bodies.largest();
+    }
+
+    /** Breaks up every water body, so its cells are checked one by one again. */
+    public void dissolveBodies() {
+        bodies.dissolveAll();
+    }
+
+    /**
+     * One step at game time {@code now}. With {@code budgetMs > 0} sections are computed in batches until the
+     * time is spent and the rest wait for the next call; the first batch is always computed, however small the
+     * budget, and the view's writes are flushed at the end either way.
+     */
+    public void tick(long now, float budgetMs) {
+        long start = System.nanoTime();
+        bodies.tick(now);
+        int count = collectActiveSections(now);
+        lastComputeNanos = 0;
+        lastStepParallel = false;
+        backlogCells = 0;
+        oldestPendingTicks = 0;
+        if (count == 0) {
+            flush();
+            lastStepNanos = 0;
+            return;
+        }
+
+        // Compute: every section reads the same volume snapshot, nothing is applied until all batches are done.
+        // Without a budget the whole step is one batch; with one, batches run until the time is spent and
+        // the sections not reached are held back whole, so a partial step never moves water twice.
+        long deadline = budgetMs > 0 ? start + (long) (budgetMs * 1.0e6) : Long.MAX_VALUE;
+        int batchSize = deadline == Long.MAX_VALUE ? count : BATCH_SECTIONS;
+        int done = 0;
+        while (done < count) {
+            int to = Math.min(done + batchSize, count);
+            computeBatch(done, to, now);
+            done = to;
+            if (System.nanoTime() >= deadline) break;
+        }
+        applyStep(done);
+        cursorKey = stepKeys[done - 1];
+
+        // Backlog: sections the budget did not reach this tick
+        for (int k = done; k < count; k++) {
+            backlogCells += stepSections[k].activeCells();
+            oldestPendingTicks = Math.max(oldestPendingTicks, now - stepSections[k].getLastStepTick());
+        }
+
+        Arrays.fill(stepSections, 0, count, null);
+        flush();
+        lastStepNanos = System.nanoTime() - start;
+    }
+
+    /** Outflows of sections {@code from..to-1} of the step list, read from the snapshot into their flux buffers. */
+    private void computeBatch(int from, int to, long now) {
+        for (int k = from; k < to; k++) {
+            stepFlux[k] = fluxPool.isEmpty() ? new FluxBuffer() : fluxPool.pop();
+            stepSections[k].setLastStepTick(now);
+            store.flushChangedColumns(stepKeys[k]);
+        }
+        view.prepare(stepKeys, from, to);
+
+        // Each section is one tile that only writes its own buffer, so tiles can run on any thread
+        long computeStart = System.nanoTime();
+        boolean parallel = settings.parallel && to - from >= 2 * SECTIONS_PER_TASK;
+        if (parallel) {
+            computePool(settings.threads).invoke(new ComputeTask(from, to));
+            lastStepParallel = true;
+        } else {
+            for (int k = from; k < to; k++) {
+                computeSection(stepKeys[k], stepSections[k], stepFlux[k], stepRates[k]);
+            }
+        }
+        lastComputeNanos += System.nanoTime() - computeStart;
+    }
+
+    /** Applies the computed flux buffers of the first {@code count} sections of the step list, all at once. */
+    private void applyStep(int count) {
+        // No target may end up over a full block, however many sources pour into it
+        capInflow(0, count);
+
+        // Sources give up their outflow first, then targets receive it
+        for (int k = 0; k < count; k++) {
+            drainSection(stepSections[k], stepFlux[k]);
+        }
+        for (int k = 0; k < count; k++) {
+            deliverSection(stepKeys[k], stepSections[k], stepFlux[k]);
+        }
+
+        // Drop emptied cells and place cells that received water; the block changes are queued until the tick ends
+        for (int k = 0; k < count; k++) {
+            settleSection(stepKeys[k], stepSections[k], stepFlux[k]);
+        }
+        placePendingCells();
+
+        for (int k = 0; k < count; k++) {
+            stepFlux[k].reset();
+            fluxPool.push(stepFlux[k]);
+            stepFlux[k] = null;
+        }
+    }
+
+    /** Splits a batch's sections into leaf tasks for the compute pool. */
+    @SuppressWarnings("serial") // fork/join tasks are never serialized
+    private final class ComputeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        ComputeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SECTIONS_PER_TASK) {
+                for (int k = from; k < to; k++) {
+                    computeSection(stepKeys[k], stepSections[k], stepFlux[k], stepRates[k]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ComputeTask(from, mid), new ComputeTask(mid, to));
+        }
+    }
+
+    /**
+     * Gathers sections with active cells in key order, starting just after the cursor and wrapping
+     * around, so sections the budget skipped come first next tick. Far sections are left out and
+     * mid sections only join every {@link FluidSettings#lodMidInterval} ticks.
+     */
+    private int collectActiveSections(long now) {
+        long[] keys = store.sectionKeys();
+        Arrays.sort(keys);
+        int first = Arrays.binarySearch(keys, cursorKey);
+        first = first >= 0 ? first + 1 : -first - 1;
+
+        cachePlayerPositions();
+        Arrays.fill(tierCells, 0);
+        int midInterval = Math.max(1, settings.lodMidInterval);
+        int midRate = Math.min(128, EQUALIZE_RATE * midInterval);
+
+        int count = 0;
+        for (int n = 0; n < keys.length; n++) {
+            long key = keys[(first + n) % keys.length];
+            FluidSection section = store.section(key);
+            if (section == null) continue;
+
+            int tier = tierOf(key);
+            tierCells[tier] += section.fluidCells();
+            if (section.activeCells() == 0 || tier == TIER_FAR) continue; // far water is frozen until a player comes closer
+            // Mid sections are spread over the interval so they don't all step on the same tick
+            if (tier == TIER_MID && Math.floorMod(now + Long.hashCode(key), midInterval) != 0) continue;
+
+            if (count == stepKeys.length) {
+                stepKeys = Arrays.copyOf(stepKeys, count * 2);
+                stepSections = Arrays.copyOf(stepSections, count * 2);
+                stepRates = Arrays.copyOf(stepRates, count * 2);
+                stepFlux = Arrays.copyOf(stepFlux, count * 2);
+            }
+            if (section.getLastStepTick() < 0) {
+                section.setLastStepTick(now); // waiting since it first became active
+            }
+            stepKeys[count] = key;
+            stepSections[count] = section;
+            stepRates[count] = tier == TIER_MID ? midRate : EQUALIZE_RATE;
+            count++;
+        }
+        return count;
+    }
+
+    private void cachePlayerPositions() {
+        playerCount = view.observerCount();
+        if (playerX.length < playerCount) {
+            playerX = new double[playerCount * 2];
+            playerZ = new double[playerCount * 2];
+        }
+        for (int p = 0; p < playerCount; p++) {
+            playerX[p] = view.observerX(p);
+            playerZ[p] = view.observerZ(p);
+        }
+    }
+
+    /** Tier of a section by horizontal distance from its centre to the nearest player, like vanilla simulation distance. */
+    private int tierOf(long key) {
+        if (!settings.lodEnabled) return TIER_NEAR;
+        // Nobody to measure from, e.g. spawn or force-loaded chunks on an empty server: keep it moving at the mid rate
+        if (playerCount == 0) return TIER_MID;
+
+        double centerX = (FluidSection.keyX(key) << 4) + 8;
+        double centerZ = (FluidSection.keyZ(key) << 4) + 8;
+        double nearest = Double.MAX_VALUE;
+        for (int p = 0; p < playerCount; p++) {
+            double dx = playerX[p] - centerX;
+            double dz = playerZ[p] - centerZ;
+            nearest = Math.min(nearest, dx * dx + dz * dz);
+        }
+
+        double near = settings.lodNearBlocks;
+        double mid = settings.lodMidBlocks;
+        if (nearest <= near * near) return TIER_NEAR;
+        if (nearest <= mid * mid) return TIER_MID;
+        return TIER_FAR;
+    }
+
+    private void computeSection(long key, FluidSection section, FluxBuffer flux, int equalizeRate) {
+        int baseX = FluidSection.keyX(key) << 4;
+        int baseY = FluidSection.keyY(key) << 4;
+        int baseZ = FluidSection.keyZ(key) << 4;
+
+        // Pressure is cached per column and only rebuilt where a volume or a block above changed
+        FluidSection above = store.section(FluidSection.key(
+                FluidSection.keyX(key), FluidSection.keyY(key) + 1, FluidSection.keyZ(key)));
+        for (int c = section.nextStaleColumn(0); c >= 0; c = section.nextStaleColumn(c + 1)) {
+            ColumnPressure.rebuild(section, above, c, baseX + (c & 15), baseY, baseZ + (c >>> 4), flux, view);
+        }
+        section.clearStaleColumns();
+
+        // Row by row: gather the block checks, let the kernel do the arithmetic, copy the outflows back
+        TransferRow row = flux.row;
+        row.equalizeRate = equalizeRate;
+        for (int rowStart = 0; rowStart < FluidSection.CELLS; rowStart += FluidSection.SIZE) {
+            int activeLanes = section.activeRow(rowStart);
+            if (activeLanes == 0) continue;
+
+            int y = baseY + FluidSection.localY(rowStart);
+            int z = baseZ + FluidSection.localZ(rowStart);
+            boolean anyLive = false;
+            for (int l = 0; l < TransferRow.LANES; l++) {
+                row.live[l] = false;
+                if ((activeLanes & (1 << l)) == 0) continue;
+
+                int i = rowStart + l;
+                int volume = section.volume[i];
+                flux.visit(i, volume);
+                if (volume < MIN_FLOW_VOLUME) continue; // merged away when the step settles
+
+                row.live[l] = true;
+                row.volume[l] = volume;
+                row.highPressure[l] = section.pressure[i] >= 2.0f;
+                gatherLane(row, l, baseX + l, y, z);
+                anyLive = true;
+            }
+            if (!anyLive) continue;
+
+            kernel.compute(row);
+
+            for (int l = 0; l < TransferRow.LANES; l++) {
+                if (!row.live[l]) continue;
+
+                int o = (rowStart + l) * DIRECTIONS;
+                int openMask = 0;
+                for (int d = 0; d < DIRECTIONS; d++) {
+                    flux.out[o + d] = row.out[d * TransferRow.LANES + l];
+                    if (row.open[d * TransferRow.LANES + l]) {
+                        openMask |= 1 << d;
+                    }
+                }
+                flux.openMask[rowStart + l] = (byte) openMask;
+            }
+        }
+    }
+
+    /**
+     * The snapshot reads the flow rules need for one cell. Lookups are skipped where the rules would
+     * not reach them: nothing else for a cell falling into open space, no sideways checks for an
+     * unsupported cell that is neither overfull nor under pressure. Package-private so benchmarks gather
+     * rows exactly as a step does.
+     */
+    void gatherLane(TransferRow row, int l, int x, int y, int z) {
+        int below = store.getVolume(x, y - 1, z);
+        boolean falls = below <= 0 && view.isOpen(x, y - 1, z);
+        boolean support = !falls && (below > 0 ? below >= SUPPORT_VOLUME : view.isSolid(x, y - 1, z));
+        boolean overflowCheck = !falls && (row.volume[l] >= TransferKernel.OVERFULL_VOLUME || row.highPressure[l]);
+        row.below[l] = below;
+        row.openBelow[l] = falls;
+        row.support[l] = support;
+
+        for (int d = NORTH; d <= WEST; d++) {
+            int n = (d - 1) * TransferRow.LANES + l;
+            int nx = x + STEP_X[d];
+            int nz = z + STEP_Z[d];
+            int neighborVolume = falls ? 0 : store.getVolume(nx, y, nz);
+            boolean neighborOpen = neighborVolume <= 0 && (support || overflowCheck) && view.isOpen(nx, y, nz);
+
+            row.neighbor[n] = neighborVolume;
+            row.emptySupported[n] = support && neighborOpen && hasSupport(nx, y, nz);
+            row.overflowOpen[n] = overflowCheck && neighborOpen && isOpen(nx, y - 1, nz);
+        }
+    }
+
+    /**
+     * Each source only checks its own transfer against the snapshot, so several sources may together
+     * send a target more than it has room for. Where they do, every transfer into that target is scaled
+     * by room / total inflow, rounding down; what is not sent stays with its source. Room is counted
+     * from the snapshot without the target's own outflow, so a cell never holds more than
+     * {@link FluidSection#FULL}, whatever it gives away in the same step.
+     */
+    private void capInflow(int from, int to) {
+        for (int k = from; k < to; k++) {
+            forEachOutflow(stepKeys[k], stepFlux[k], false);
+        }
+        if (inflow.isEmpty()) return;
+
+        for (int k = from; k < to; k++) {
+            forEachOutflow(stepKeys[k], stepFlux[k], true);
+        }
+        inflow.clear();
+    }
+
+    /** Sums the outflows into {@link #inflow} per target, or with {@code scale} trims them to the targets' room. */
+    private void forEachOutflow(long key, FluxBuffer flux, boolean scale) {
+        int baseX = FluidSection.keyX(key) << 4;
+        int baseY = FluidSection.keyY(key) << 4;
+        int baseZ = FluidSection.keyZ(key) << 4;
+
+        for (int i = flux.nextVisited(0); i >= 0; i = flux.nextVisited(i + 1)) {
+            int o = i * DIRECTIONS;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int amount = flux.out[o + d];
+                if (amount <= 0) continue;
+
+                int tx = baseX + FluidSection.localX(i) + STEP_X[d];
+                int ty = baseY + FluidSection.localY(i) + STEP_Y[d];
+                int tz = baseZ + FluidSection.localZ(i) + STEP_Z[d];
+                long pos = FluidSectionStore.posKey(tx, ty, tz);
+                if (!scale) {
+                    inflow.addTo(pos, amount);
+                    continue;
+                }
+
+                int total = inflow.get(pos);
+                int room = Math.max(0, FluidSection.FULL - store.getVolume(tx, ty, tz));
+                if (total > room) {
+                    flux.out[o + d] = (int) ((long) amount * room / total);
+                }
+            }
+        }
+    }
+
+    private void drainSection(FluidSection section, FluxBuffer flux) {
+        for (int i = flux.nextVisited(0); i >= 0; i = flux.nextVisited(i + 1)) {
+            int total = flux.totalOut(i);
+            if (total > 0) {
+                section.setVolume(i, section.volume[i] - total);
+            }
+        }
+    }
+
+    private void deliverSection(long key, FluidSection section, FluxBuffer flux) {
+        int baseX = FluidSection.keyX(key) << 4;
+        int baseY = FluidSection.keyY(key) << 4;
+        int baseZ = FluidSection.keyZ(key) << 4;
+
+        for (int i = flux.nextVisited(0); i >= 0; i = flux.nextVisited(i + 1)) {
+            int o = i * DIRECTIONS;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int amount = flux.out[o + d];
+                if (amount <= 0) continue;
+
+                int tx = baseX + FluidSection.localX(i) + STEP_X[d];
+                int ty = baseY + FluidSection.localY(i) + STEP_Y[d];
+                int tz = baseZ + FluidSection.localZ(i) + STEP_Z[d];
+
+                FluidSection target = store.sectionAt(tx, ty, tz);
+                if ((flux.openMask[i] & (1 << d)) != 0 || target == null) {
+                    // New cell: the block is placed once the whole step has been applied
+                    long pos = FluidSectionStore.posKey(tx, ty, tz);
+                    pendingVolume.addTo(pos, amount);
+                    int source = pendingSource.get(pos);
+                    if (source == 0) {
+                        source = (section.type[i] << 8) | d;
+                    }
+                    pendingSource.put(pos, source | 1 << (3 + d));
+                    continue;
+                }
+
+                int ti = FluidSectionStore.indexAt(tx, ty, tz);
+                target.setVolume(ti, target.volume[ti] + amount);
+                if (d == DOWN) {
+                    target.vy[ti] = Math.min(-0.1f, target.vy[ti] - 0.05f);
+                }
+                store.wakeAround(tx, ty, tz);
+            }
+        }
+    }
+
+    private void settleSection(long key, FluidSection section, FluxBuffer flux) {
+        int baseX = FluidSection.keyX(key) << 4;
+        int baseY = FluidSection.keyY(key) << 4;
+        int baseZ = FluidSection.keyZ(key) << 4;
+        int sleepVolume = Math.max(1, Math.round(settings.sleepVolumeEpsilon * FluidSection.FULL));
+
+        for (int i = flux.nextVisited(0); i >= 0; i = flux.nextVisited(i + 1)) {
+            int x = baseX + FluidSection.localX(i);
+            int y = baseY + FluidSection.localY(i);
+            int z = baseZ + FluidSection.localZ(i);
+
+            // Too little to flow: what is left joins neighbours with room, or stays as a still residue
+            if (section.volume[i] < MIN_FLOW_VOLUME) {
+                int residue = spillIntoNeighbors(x, y, z, section.type[i], section.volume[i]);
+                if (residue == 0) {
+                    removeCell(x, y, z);
+                } else {
+                    // Only left with no fluid of its type below or beside it, or all of it full. Dropping it would
+                    // lose volume, so it stays as one sleeping cell the kernel never moves; a change next to it
+                    // wakes it to try again. A lone droplet can stay like this indefinitely.
+                    section.setVolume(i, residue);
+                    section.sleep(i);
+                }
+                continue;
+            }
+
+            // Damping
+            section.vx[i] *= 0.9f;
+            section.vy[i] *= 0.95f;
+            section.vz[i] *= 0.9f;
+
+            // Sleep once the volume has stopped moving; any change wakes the neighbours instead
+            if (Math.abs(section.volume[i] - flux.before[i]) >= sleepVolume) {
+                store.wakeAround(x, y, z);
+            } else {
+                section.markCalm(i, settings.sleepAfterTicks);
+            }
+        }
+    }
+
+    private void placePendingCells() {
+        if (pendingVolume.isEmpty()) return;
+
+        for (Long2IntMap.Entry entry : pendingVolume.long2IntEntrySet()) {
+            long pos = entry.getLongKey();
+            int source = pendingSource.get(pos);
+            int d = source & 7;
+            placeCell(FluidSectionStore.posX(pos), FluidSectionStore.posY(pos), FluidSectionStore.posZ(pos),
+                    source >>> 8, entry.getIntValue(),
+                    STEP_X[d] * 0.5f, STEP_Y[d] * 0.5f, STEP_Z[d] * 0.5f);
+        }
+        // The sources are kept until the view has flushed, in case the world turns a placement down
+        pendingVolume.clear();
+    }
+
+    private boolean hasSupport(int x, int y, int z) {
+        int below = store.getVolume(x, y - 1, z);
+        if (below > 0) {
+            return below >= SUPPORT_VOLUME; // Can spread on full water
+        }
+        return view.isSolid(x, y - 1, z);
+    }
+
+    /** Empty of fluid and air or replaceable, so water may move in. */
+    private boolean isOpen(int x, int y, int z) {
+        return !store.hasFluid(x, y, z) && view.isOpen(x, y, z);
+    }
+
+    private void placeCell(int x, int y, int z, int typeId, int volume, float vx, float vy, float vz) {
+        // The block is queued; if the world has no room for it at the end of the tick the cell is dropped
+        // again and its volume returned to its sources. In a level, onPlace registers the index entry, and the
+        // new block entity finds the store already written, so it does not seed it with its default volume.
+        view.placeFluid(x, y, z, typeId);
+
+        FluidSection section = store.getOrCreate(x, y, z);
+        int i = FluidSectionStore.indexAt(x, y, z);
+        section.setVolume(i, volume);
+        section.vx[i] = vx;
+        section.vy[i] = vy;
+        section.vz[i] = vz;
+        section.setType(i, typeId);
+        store.wakeAround(x, y, z);
+    }
+
+    private void removeCell(int x, int y, int z) {
+        // onRemove drops the fluid index entry once the queued removal is applied
+        store.clearCell(x, y, z);
+        store.wakeAround(x, y, z);
+        view.removeFluid(x, y, z);
+    }
+
+    /**
+     * Applies the view's queued writes. Placements the world turns down give their volume back, and the
+     * sources that re-creates are flushed in turn; those were fluid when the step started, so the world
+     * has room for them. Nothing the second flush turns down places anything, so there is no third.
+     */
+    private void flush() {
+        view.flush(rejectPlacement);
+        while (!rejected.isEmpty()) {
+            for (int k = 0; k < rejected.size(); k++) {
+                returnRejected(rejected.getLong(k));
+            }
+            rejected.clear();
+            pendingSource.clear();
+            view.flush(rejectPlacement);
+        }
+        pendingSource.clear();
+    }
+
+    /**
+     * Drops a new cell the world had no room for. Its volume goes back to the cells that poured into it, and
+     * a source the step emptied is placed again. {@link #capInflow} let no cell take in more than its room, so
+     * a source normally has room for what it gave; anything still left spills into fluid next to the cell.
+     */
+    private void returnRejected(long pos) {
+        int x = FluidSectionStore.posX(pos);
+        int y = FluidSectionStore.posY(pos);
+        int z = FluidSectionStore.posZ(pos);
+        int volume = store.getVolume(x, y, z);
+        int typeId = store.getType(x, y, z);
+        store.clearCell(x, y, z);
+        store.wakeAround(x, y, z);
+
+        int source = pendingSource.get(pos);
+        for (int d = 0; d < DIRECTIONS && volume > 0; d++) {
+            if ((source & (1 << (3 + d))) == 0) continue;
+
+            int sx = x - STEP_X[d];
+            int sy = y - STEP_Y[d];
+            int sz = z - STEP_Z[d];
+            if (store.hasFluid(sx, sy, sz)) {
+                volume = fill(sx, sy, sz, volume);
+            } else {
+                int back = Math.min(volume, FluidSection.FULL);
+                placeCell(sx, sy, sz, source >>> 8, back, 0, 0, 0);
+                volume -= back;
+            }
+        }
+        strandedVolume += spillIntoNeighbors(x, y, z, typeId, volume);
+    }
+
+    /**
+     * Hands as much of {@code volume} as fits to the fluid cells of the same type next to a position: the one
+     * below first, then the fullest beside it. Returns what none of them had room for.
+     */
+    private int spillIntoNeighbors(int x, int y, int z, int typeId, int volume) {
+        if (store.getType(x, y - 1, z) == typeId) {
+            volume = fill(x, y - 1, z, volume);
+        }
+        while (volume > 0) {
+            int best = 0;
+            int bestD = -1;
+            for (int d = NORTH; d <= WEST; d++) {
+                int v = store.getVolume(x + STEP_X[d], y, z + STEP_Z[d]);
+                if (v > best && v < FluidSection.FULL && store.getType(x + STEP_X[d], y, z + STEP_Z[d]) == typeId) {
+                    best = v;
+                    bestD = d;
+                }
+            }
+            if (bestD < 0) break;
+            volume = fill(x + STEP_X[bestD], y, z + STEP_Z[bestD], volume);
+        }
+        return volume;
+    }
+
+    /** Tops up a fluid cell with as much of {@code volume} as it has room for and returns the rest. */
+    private int fill(int x, int y, int z, int volume) {
+        int v = store.getVolume(x, y, z);
+        int given = Math.min(volume, FluidSection.FULL - v);
+        if (v <= 0 || given <= 0) return volume;
+
+        store.setVolume(x, y, z, v + given);
+        return volume - given;
+    }
+}
@@ -0,0 +1,101 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import java.util.Arrays;
+
+/**
+ * Running totals for all sections of one {@link FluidSectionStore}, kept up to date by
+ * {@link FluidSection#setVolume} and {@link FluidSection#setType} so nothing has to be summed.
+ *
+ * <p>Fluid that arrives or leaves with its chunk ({@link FluidSection#loadVolume}, {@link FluidSection#unload})
+ * changes the totals but is kept apart as residency: it is neither created nor destroyed, and
+ * {@link FluidMassMonitor} takes it out before measuring growth.
+ */
+public final class FluidLedger {
+    /** Type ids are below this; VoxelType has five. */
+    public static final int TYPES = 8;
+
+    private long volume;
+    private int cells;
+    private final int[] typeCells = new int[TYPES];
+    private long created;
+    private long destroyed;
+    private long residentVolume;
+    private int residentCells;
+
+    /** Total volume in {@link FluidSection#FULL} units. */
+    public long volume() {
+        return volume;
+    }
+
+    public int cells() {
+        return cells;
+    }
+
+    /** Fluid cells holding the given VoxelType id. */
+    public int typeCells(int typeId) {
+        return typeCells[typeId & (TYPES - 1)];
+    }
+
+    /** Cells that went from empty to holding fluid, since the level was loaded. */
+    public long created() {
+        return created;
+    }
+
+    /** Cells that went from holding fluid to empty, since the level was loaded. */
+    public long destroyed() {
+        return destroyed;
+    }
+
+    /** Volume brought in by chunks loading less what unloading took away, since the level was loaded. */
+    public long residentVolume() {
+        return residentVolume;
+    }
+
+    /** Cells brought in by chunks loading less those unloading took away, since the level was loaded. */
+    public int residentCells() {
+        return residentCells;
+    }
+
+    void volumeChanged(int oldVolume, int newVolume, int typeId) {
+        int cellChange = applyChange(oldVolume, newVolume, typeId);
+        if (cellChange > 0) {
+            created++;
+        } else if (cellChange < 0) {
+            destroyed++;
+        }
+    }
+
+    void residencyChanged(int oldVolume, int newVolume, int typeId) {
+        residentVolume += newVolume - oldVolume;
+        residentCells += applyChange(oldVolume, newVolume, typeId);
+    }
+
+    /** Updates the totals; returns +1 if a cell started holding fluid, -1 if one stopped, 0 otherwise. */
+    private int applyChange(int oldVolume, int newVolume, int typeId) {
+        volume += newVolume - oldVolume;
+        if (oldVolume <= 0 && newVolume > 0) {
+            cells++;
+            typeCells[typeId & (TYPES - 1)]++;
+            return 1;
+        }
+        if (oldVolume > 0 && newVolume <= 0) {
+            cells--;
+            typeCells[typeId & (TYPES - 1)]--;
+            return -1;
+        }
+        return 0;
+    }
+
+    void typeChanged(int oldType, int newType) {
+        typeCells[oldType & (TYPES - 1)]--;
+        typeCells[newType & (TYPES - 1)]++;
+    }
+
+    void clear() {
+        volume = 0;
+        cells = 0;
+        residentVolume = 0;
+        residentCells = 0;
+        Arrays.fill(typeCells, 0);
+    }
+}
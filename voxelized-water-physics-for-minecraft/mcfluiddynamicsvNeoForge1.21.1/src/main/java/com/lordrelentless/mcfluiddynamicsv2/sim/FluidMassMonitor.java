@@ -0,0 +1,135 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
+import com.lordrelentless.mcfluiddynamicsv2.util.Config;
+
+/**
+ * Watches one level's {@link FluidLedger}: cells created and destroyed per tick, and net growth of
+ * volume and cell count per second. Fluid that came or went with its chunk is not growth, so the
+ * ledger's residency is taken out of both. Growth past {@link Config#MASS_ALARM_BLOCKS_PER_SECOND} or
+ * {@link Config#MASS_ALARM_CELLS_PER_SECOND} raises an alarm, which throttles the fluid step to
+ * {@link Config#MASS_THROTTLE_BUDGET_MS} until a whole second passes under both limits.
+ */
+public final class FluidMassMonitor {
+    private static final int TICKS_PER_SECOND = 20;
+
+    private final FluidLedger ledger;
+    private final String levelName;
+
+    // Last tick
+    private long lastCreated;
+    private long lastDestroyed;
+    private int createdLastTick;
+    private int destroyedLastTick;
+
+    // Rates over the last whole second
+    private long window = Long.MIN_VALUE;
+    private long windowVolume;
+    private int windowCells;
+    private long windowCreated;
+    private long windowDestroyed;
+    private float volumePerSecond;
+    private float cellsPerSecond;
+    private float createdPerSecond;
+    private float destroyedPerSecond;
+
+    private boolean alarmed;
+    private long alarmSince;
+
+    FluidMassMonitor(FluidLedger ledger, String levelName) {
+        this.ledger = ledger;
+        this.levelName = levelName;
+    }
+
+    /** Call once per level tick, after the fluid step. */
+    void tick(long now) {
+        createdLastTick = (int) (ledger.created() - lastCreated);
+        destroyedLastTick = (int) (ledger.destroyed() - lastDestroyed);
+        lastCreated = ledger.created();
+        lastDestroyed = ledger.destroyed();
+
+        long second = now / TICKS_PER_SECOND;
+        if (second == window) return;
+
+        if (window != Long.MIN_VALUE) {
+            // Normally one second, longer if the level skipped ticks
+            float seconds = second - window;
+            volumePerSecond = (simulatedVolume() - windowVolume) / (float) FluidSection.FULL / seconds;
+            cellsPerSecond = (simulatedCells() - windowCells) / seconds;
+            createdPerSecond = (ledger.created() - windowCreated) / seconds;
+            destroyedPerSecond = (ledger.destroyed() - windowDestroyed) / seconds;
+            updateAlarm(now);
+        }
+        window = second;
+        windowVolume = simulatedVolume();
+        windowCells = simulatedCells();
+        windowCreated = ledger.created();
+        windowDestroyed = ledger.destroyed();
+
+        if (Config.MASS_LOG_SECONDS > 0 && second % Config.MASS_LOG_SECONDS == 0 && ledger.cells() > 0) {
+            MCFluidDynamicsV2Mod.LOGGER.info("Fluid in {}: {}", levelName, summary());
+        }
+    }
+
+    /** The ledger's volume less what chunks brought in, so only the simulation's own changes move it. */
+    private long simulatedVolume() {
+        return ledger.volume() - ledger.residentVolume();
+    }
+
+    private int simulatedCells() {
+        return ledger.cells() - ledger.residentCells();
+    }
+
+    private void updateAlarm(long now) {
+        boolean tooFast = (Config.MASS_ALARM_BLOCKS_PER_SECOND > 0 && volumePerSecond > Config.MASS_ALARM_BLOCKS_PER_SECOND)
+                || (Config.MASS_ALARM_CELLS_PER_SECOND > 0 && cellsPerSecond > Config.MASS_ALARM_CELLS_PER_SECOND);
+        if (tooFast && !alarmed) {
+            alarmed = true;
+            alarmSince = now;
+            MCFluidDynamicsV2Mod.LOGGER.warn("Fluid in {} is growing by {} blocks and {} cells per second{}: {}",
+                    levelName, String.format("%.1f", volumePerSecond), String.format("%.0f", cellsPerSecond),
+                    throttled() ? ", throttling its step" : "", summary());
+        } else if (!tooFast && alarmed) {
+            alarmed = false;
+            MCFluidDynamicsV2Mod.LOGGER.info("Fluid growth in {} back under the alarm after {} ticks",
+                    levelName, now - alarmSince);
+        }
+    }
+
+    /** One line with the totals and rates, for the log and the mass command. */
+    public String summary() {
+        return String.format("%.1f blocks in %d cells; %+.1f blocks/s, %+.0f cells/s; %.0f created, %.0f destroyed per second",
+                ledger.volume() / (float) FluidSection.FULL, ledger.cells(), volumePerSecond, cellsPerSecond,
+                createdPerSecond, destroyedPerSecond);
+    }
+
+    public FluidLedger ledger() {
+        return ledger;
+    }
+
+    public boolean alarmed() {
+        return alarmed;
+    }
+
+    /** The alarm is raised and a throttle budget is set. */
+    public boolean throttled() {
+        return alarmed && Config.MASS_THROTTLE_BUDGET_MS > 0;
+    }
+
+    public int createdLastTick() {
+        return createdLastTick;
+    }
+
+    public int destroyedLastTick() {
+        return destroyedLastTick;
+    }
+
+    /** Net volume change over the last whole second, in blocks. */
+    public float volumePerSecond() {
+        return volumePerSecond;
+    }
+
+    public float cellsPerSecond() {
+        return cellsPerSecond;
+    }
+}
@@ -0,0 +1,312 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import java.util.Arrays;
+
+/**
+ * Dense simulation state for one 16x16x16 chunk section.
+ * One primitive array per field replaces the per-voxel block entity fields.
+ */
+public final class FluidSection {
+    public static final int SIZE = 16;
+    public static final int CELLS = SIZE * SIZE * SIZE;
+    /**
+     * Volume units in a full block (millibuckets). Volumes are whole units and every transfer moves whole
+     * units from one cell to another, so the total is conserved exactly.
+     */
+    public static final int FULL = 1000;
+
+    /** Volume in {@link #FULL} units per block; the step never fills a cell past {@link #FULL}. */
+    public final short[] volume = new short[CELLS];
+    public final float[] vx = new float[CELLS];
+    public final float[] vy = new float[CELLS];
+    public final float[] vz = new float[CELLS];
+    public final float[] pressure = new float[CELLS];
+    /** VoxelType id, so new cells can be placed without reading the source block state. */
+    public final byte[] type = new byte[CELLS];
+
+    // Active set: one bit per cell that still needs ticking, plus how long it has been calm
+    private final long[] active = new long[CELLS >> 6];
+    private final byte[] calmTicks = new byte[CELLS];
+
+    // Pressure cache: columns (lz << 4 | lx) whose volumes changed since the last flush, and columns whose
+    // pressure must be rebuilt before it is read again
+    private final long[] changedColumns = new long[(SIZE * SIZE) >> 6];
+    private final long[] staleColumns = new long[(SIZE * SIZE) >> 6];
+    private boolean hasChangedColumns = false;
+
+    // Water body id per cell (0 = none), allocated once a body claims a cell here
+    private int[] body;
+    private int bodyCells = 0;
+
+    private int fluidCells = 0;
+    private int activeCells = 0;
+    private long lastStepTick = -1;
+    /** A volume or type changed since clients were last sent this section. */
+    private boolean syncDirty = false;
+    /** Totals shared by every section of the store. */
+    private final FluidLedger ledger;
+
+    public FluidSection(FluidLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /** Cell index from section-local coordinates (0..15 each). */
+    public static int index(int lx, int ly, int lz) {
+        return (ly << 8) | (lz << 4) | lx;
+    }
+
+    public static int localX(int index) {
+        return index & 15;
+    }
+
+    public static int localY(int index) {
+        return index >>> 8;
+    }
+
+    public static int localZ(int index) {
+        return (index >>> 4) & 15;
+    }
+
+    /** Column (lz << 4 | lx) of a cell index; add {@code ly << 8} to get back to a cell. */
+    public static int column(int index) {
+        return index & 0xFF;
+    }
+
+    /** Packs section coordinates with the same bit layout as vanilla SectionPos.asLong. */
+    public static long key(int sx, int sy, int sz) {
+        return ((long) sx & 0x3FFFFFL) << 42 | ((long) sy & 0xFFFFFL) | ((long) sz & 0x3FFFFFL) << 20;
+    }
+
+    public static int keyX(long key) {
+        return (int) (key >> 42);
+    }
+
+    public static int keyY(long key) {
+        return (int) (key << 44 >> 44);
+    }
+
+    public static int keyZ(long key) {
+        return (int) (key << 22 >> 42);
+    }
+
+    public int getVolume(int index) {
+        return volume[index];
+    }
+
+    /**
+     * Sets a cell's volume in units, keeping the occupied-cell count and the pressure cache in step.
+     *
+     * @throws IllegalArgumentException if {@code value} is over {@link #FULL}; callers spill the excess
+     *                                  themselves rather than have it cut off here
+     */
+    public void setVolume(int index, int value) {
+        setVolume(index, value, false);
+    }
+
+    /**
+     * Sets the volume of a cell arriving with its chunk. The ledger counts it as residency rather than a
+     * cell created, so loading chunks never looks like growth.
+     */
+    public void loadVolume(int index, int value) {
+        setVolume(index, value, true);
+    }
+
+    private void setVolume(int index, int value, boolean residency) {
+        if (value > FULL) {
+            throw new IllegalArgumentException("Cell volume " + value + " is over a full block (" + FULL + ")");
+        }
+        boolean had = volume[index] > 0;
+        boolean has = value > 0;
+        short stored = (short) (has ? value : 0);
+        if (volume[index] != stored) {
+            int column = column(index);
+            changedColumns[column >>> 6] |= 1L << column;
+            hasChangedColumns = true;
+            syncDirty = true;
+            if (residency) {
+                ledger.residencyChanged(volume[index], stored, type[index]);
+            } else {
+                ledger.volumeChanged(volume[index], stored, type[index]);
+            }
+        }
+        volume[index] = stored;
+        if (had != has) {
+            fluidCells += has ? 1 : -1;
+        }
+    }
+
+    /** Resets every field of a cell. */
+    public void clear(int index) {
+        clear(index, false);
+    }
+
+    /** Resets every field of a cell leaving with its chunk; the ledger counts it as residency, not a cell destroyed. */
+    public void unload(int index) {
+        clear(index, true);
+    }
+
+    private void clear(int index, boolean residency) {
+        setVolume(index, 0, residency);
+        sleep(index);
+        calmTicks[index] = 0;
+        vx[index] = 0;
+        vy[index] = 0;
+        vz[index] = 0;
+        pressure[index] = 0;
+        type[index] = 0;
+        setBody(index, 0);
+    }
+
+    public boolean isActive(int index) {
+        return (active[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /** Puts an occupied cell back into the active set and restarts its calm counter. */
+    public void wake(int index) {
+        if (volume[index] <= 0) return;
+        calmTicks[index] = 0;
+        if (!isActive(index)) {
+            active[index >>> 6] |= 1L << index;
+            activeCells++;
+        }
+    }
+
+    public void sleep(int index) {
+        if (isActive(index)) {
+            active[index >>> 6] &= ~(1L << index);
+            activeCells--;
+        }
+    }
+
+    /**
+     * Counts one calm tick for a cell and puts it to sleep once it has been calm for {@code sleepAfter} ticks.
+     * @return true if the cell fell asleep
+     */
+    public boolean markCalm(int index, int sleepAfter) {
+        int calm = (calmTicks[index] & 0xFF) + 1;
+        if (calm >= sleepAfter) {
+            sleep(index);
+            return true;
+        }
+        calmTicks[index] = (byte) calm;
+        return false;
+    }
+
+    /** Active bits of the 16-cell x-row starting at {@code rowStart} (a multiple of 16), lane x at bit x. */
+    public int activeRow(int rowStart) {
+        return (int) (active[rowStart >>> 6] >>> (rowStart & 63)) & 0xFFFF;
+    }
+
+    /** Next active cell index at or after {@code from}, or -1. */
+    public int nextActive(int from) {
+        int word = from >>> 6;
+        if (word >= active.length) return -1;
+
+        long bits = active[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == active.length) return -1;
+            bits = active[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public void setType(int index, int typeId) {
+        if (type[index] != typeId) {
+            if (volume[index] > 0) {
+                ledger.typeChanged(type[index], typeId);
+            }
+            type[index] = (byte) typeId;
+            syncDirty = true;
+        }
+    }
+
+    /** True if a volume or type changed since the last call. */
+    public boolean takeSyncDirty() {
+        boolean dirty = syncDirty;
+        syncDirty = false;
+        return dirty;
+    }
+
+    public void markColumnStale(int column) {
+        staleColumns[column >>> 6] |= 1L << column;
+    }
+
+    /**
+     * Turns the columns changed since the last flush into stale pressure, here and in the section below,
+     * whose pressure window reaches up into this one.
+     */
+    public void flushChangedColumns(FluidSection below) {
+        if (!hasChangedColumns) return;
+
+        for (int w = 0; w < changedColumns.length; w++) {
+            staleColumns[w] |= changedColumns[w];
+            if (below != null) {
+                below.staleColumns[w] |= changedColumns[w];
+            }
+            changedColumns[w] = 0;
+        }
+        hasChangedColumns = false;
+    }
+
+    /** Next stale column at or after {@code from}, or -1. */
+    public int nextStaleColumn(int from) {
+        int word = from >>> 6;
+        if (word >= staleColumns.length) return -1;
+
+        long bits = staleColumns[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == staleColumns.length) return -1;
+            bits = staleColumns[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public void clearStaleColumns() {
+        Arrays.fill(staleColumns, 0L);
+    }
+
+    public int activeCells() {
+        return activeCells;
+    }
+
+    /** Id of the water body owning a cell, 0 if none. */
+    public int getBody(int index) {
+        return body == null ? 0 : body[index];
+    }
+
+    public void setBody(int index, int id) {
+        if (body == null) {
+            if (id == 0) return;
+            body = new int[CELLS];
+        }
+        if ((body[index] != 0) != (id != 0)) {
+            bodyCells += id != 0 ? 1 : -1;
+        }
+        body[index] = id;
+        if (bodyCells == 0) {
+            body = null;
+        }
+    }
+
+    /** Fluid cells owned by a water body. */
+    public int bodyCells() {
+        return bodyCells;
+    }
+
+    /** Game tick this section was last stepped, or -1 if it never has been. */
+    public long getLastStepTick() {
+        return lastStepTick;
+    }
+
+    public void setLastStepTick(long tick) {
+        lastStepTick = tick;
+    }
+
+    public int fluidCells() {
+        return fluidCells;
+    }
+
+    public boolean isEmpty() {
+        return fluidCells == 0;
+    }
+}
@@ -0,0 +1,244 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * All fluid sections of one level, keyed by packed section position.
+ * Sections are created on first write and dropped again once they hold no fluid.
+ */
+public final class FluidSectionStore {
+    private final Long2ObjectOpenHashMap<FluidSection> sections = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<FluidSection> sectionsView = Long2ObjectMaps.unmodifiable(sections);
+    /** Keys of sections dropped since the client sync last looked. */
+    private final LongArrayList droppedSections = new LongArrayList();
+    /** Water bodies that had a member cell woken or cleared since the simulator last looked. */
+    private final IntOpenHashSet disturbedBodies = new IntOpenHashSet();
+    private final FluidLedger ledger = new FluidLedger();
+
+    public static long sectionKeyAt(int x, int y, int z) {
+        return FluidSection.key(x >> 4, y >> 4, z >> 4);
+    }
+
+    public static int indexAt(int x, int y, int z) {
+        return FluidSection.index(x & 15, y & 15, z & 15);
+    }
+
+    /** Packs a block position with the same bit layout as vanilla BlockPos.asLong. */
+    public static long posKey(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) y & 0xFFFL) | ((long) z & 0x3FFFFFFL) << 12;
+    }
+
+    public static int posX(long pos) {
+        return (int) (pos >> 38);
+    }
+
+    public static int posY(long pos) {
+        return (int) (pos << 52 >> 52);
+    }
+
+    public static int posZ(long pos) {
+        return (int) (pos << 26 >> 38);
+    }
+
+    public FluidSection section(long key) {
+        return sections.get(key);
+    }
+
+    public FluidSection sectionAt(int x, int y, int z) {
+        return sections.get(sectionKeyAt(x, y, z));
+    }
+
+    public FluidSection getOrCreate(int x, int y, int z) {
+        return sections.computeIfAbsent(sectionKeyAt(x, y, z), k -> new FluidSection(ledger));
+    }
+
+    /** Volume in {@link FluidSection#FULL} units. */
+    public int getVolume(int x, int y, int z) {
+        FluidSection section = sectionAt(x, y, z);
+        return section == null ? 0 : section.volume[indexAt(x, y, z)];
+    }
+
+    /** VoxelType id of a cell; 0 where there is no fluid. */
+    public int getType(int x, int y, int z) {
+        FluidSection section = sectionAt(x, y, z);
+        return section == null ? 0 : section.type[indexAt(x, y, z)];
+    }
+
+    public boolean hasFluid(int x, int y, int z) {
+        return getVolume(x, y, z) > 0;
+    }
+
+    public void setVolume(int x, int y, int z, int value) {
+        if (value <= 0) {
+            clearCell(x, y, z);
+        } else {
+            getOrCreate(x, y, z).setVolume(indexAt(x, y, z), value);
+        }
+        wakeAround(x, y, z);
+    }
+
+    public void setType(int x, int y, int z, int typeId) {
+        FluidSection section = sectionAt(x, y, z);
+        if (section != null) {
+            section.setType(indexAt(x, y, z), typeId);
+        }
+    }
+
+    public void wake(int x, int y, int z) {
+        FluidSection section = sectionAt(x, y, z);
+        if (section != null) {
+            int i = indexAt(x, y, z);
+            section.wake(i);
+            disturbBody(section.getBody(i));
+        }
+    }
+
+    /** Id of the water body owning a cell, 0 if none. */
+    public int bodyAt(int x, int y, int z) {
+        FluidSection section = sectionAt(x, y, z);
+        return section == null ? 0 : section.getBody(indexAt(x, y, z));
+    }
+
+    private void disturbBody(int id) {
+        if (id > 0) {
+            disturbedBodies.add(id);
+        }
+    }
+
+    public IntOpenHashSet disturbedBodies() {
+        return disturbedBodies;
+    }
+
+    /** Wakes a cell and its six face neighbours. */
+    public void wakeAround(int x, int y, int z) {
+        wake(x, y, z);
+        wake(x + 1, y, z);
+        wake(x - 1, y, z);
+        wake(x, y + 1, z);
+        wake(x, y - 1, z);
+        wake(x, y, z + 1);
+        wake(x, y, z - 1);
+    }
+
+    /** Wakes every cell in the 3x3x3 block around a position. */
+    public void wakeArea(int x, int y, int z) {
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    wake(x + dx, y + dy, z + dz);
+                }
+            }
+        }
+    }
+
+    public void clearCell(int x, int y, int z) {
+        clearCell(x, y, z, false);
+    }
+
+    /** Clears a cell whose chunk is unloading; the ledger counts it as residency, not a cell destroyed. */
+    public void unloadCell(int x, int y, int z) {
+        clearCell(x, y, z, true);
+    }
+
+    private void clearCell(int x, int y, int z, boolean unloading) {
+        long key = sectionKeyAt(x, y, z);
+        FluidSection section = sections.get(key);
+        if (section == null) return;
+
+        int i = indexAt(x, y, z);
+        disturbBody(section.getBody(i));
+        if (unloading) {
+            section.unload(i);
+        } else {
+            section.clear(i);
+        }
+        if (section.isEmpty()) {
+            // The section below still has to see the last volumes leave
+            section.flushChangedColumns(sectionAt(x, y - FluidSection.SIZE, z));
+            sections.remove(key);
+            droppedSections.add(key);
+        }
+    }
+
+    /**
+     * Turns the changed columns a section's pressure depends on, its own and the section above's,
+     * into stale ones. Call before stepping the section.
+     */
+    public void flushChangedColumns(long key) {
+        int sx = FluidSection.keyX(key);
+        int sy = FluidSection.keyY(key);
+        int sz = FluidSection.keyZ(key);
+        FluidSection section = sections.get(key);
+        FluidSection above = sections.get(FluidSection.key(sx, sy + 1, sz));
+        if (above != null) {
+            above.flushChangedColumns(section);
+        }
+        if (section != null) {
+            section.flushChangedColumns(sections.get(FluidSection.key(sx, sy - 1, sz)));
+        }
+    }
+
+    /** A block changed at this position: pressure of the fluid up to 16 cells below may see a new ceiling. */
+    public void invalidatePressureBelow(int x, int y, int z) {
+        int column = FluidSection.column(indexAt(x, y, z));
+        FluidSection near = sectionAt(x, y - 1, z);
+        if (near != null) {
+            near.markColumnStale(column);
+        }
+        FluidSection far = sectionAt(x, y - FluidSection.SIZE, z);
+        if (far != null) {
+            far.markColumnStale(column);
+        }
+    }
+
+    /** Read-only view of the sections by key; don't add or drop cells while iterating it. */
+    public Long2ObjectMap<FluidSection> sections() {
+        return sectionsView;
+    }
+
+    /** Sections dropped since the list was last cleared; the caller clears it once handled. */
+    public LongArrayList droppedSections() {
+        return droppedSections;
+    }
+
+    /** Copy of the current section keys, safe to iterate while sections are added or dropped. */
+    public long[] sectionKeys() {
+        return sections.keySet().toLongArray();
+    }
+
+    public int fluidCells() {
+        int total = 0;
+        for (FluidSection section : sections.values()) {
+            total += section.fluidCells();
+        }
+        return total;
+    }
+
+    public int activeCells() {
+        int total = 0;
+        for (FluidSection section : sections.values()) {
+            total += section.activeCells();
+        }
+        return total;
+    }
+
+    public int sectionCount() {
+        return sections.size();
+    }
+
+    /** Volume, cell and per-type totals over every section. */
+    public FluidLedger ledger() {
+        return ledger;
+    }
+
+    public void clear() {
+        sections.clear();
+        ledger.clear();
+        disturbedBodies.clear();
+        droppedSections.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+/**
+ * Tuning for one {@link FluidCore}, read as the core steps, so a change takes effect on the next tick.
+ * Starts at the mod's defaults; {@link FluidSimulator} copies the runtime config into it before every step,
+ * tests and benchmarks set the fields directly.
+ */
+public final class FluidSettings {
+    /** A cell whose volume moves less than this share of a full block in a tick counts as calm. */
+    public float sleepVolumeEpsilon = 0.001f;
+
+    /** Calm ticks before a cell leaves the active set. */
+    public int sleepAfterTicks = 20;
+
+    /** Step sections less often the further they are from the nearest observer. */
+    public boolean lodEnabled = true;
+
+    /** Within this many blocks (horizontally) of an observer, sections step every tick. */
+    public int lodNearBlocks = 64;
+
+    /** Within this many blocks sections step every {@link #lodMidInterval} ticks; beyond it they are frozen. */
+    public int lodMidBlocks = 160;
+
+    /** Ticks between steps in the mid tier. */
+    public int lodMidInterval = 4;
+
+    /** Group settled connected water into water bodies that skip per-cell work. */
+    public boolean lakeMode = true;
+
+    /** Ticks between scans for new water bodies. */
+    public int lakeScanInterval = 40;
+
+    /** Smallest settled component that becomes a water body. */
+    public int lakeMinCells = 64;
+
+    /** Compute fluxes on the shared worker pool. */
+    public boolean parallel = false;
+
+    /** Worker threads for the parallel compute pass; read when the shared pool is first created. */
+    public int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+}
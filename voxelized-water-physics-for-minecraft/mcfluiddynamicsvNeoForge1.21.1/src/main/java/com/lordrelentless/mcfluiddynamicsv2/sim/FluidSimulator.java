@@ -0,0 +1,261 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
+import com.lordrelentless.mcfluiddynamicsv2.block.FluidVoxelBlock;
+import com.lordrelentless.mcfluiddynamicsv2.blockentity.FluidVoxelBlockEntity;
+import com.lordrelentless.mcfluiddynamicsv2.network.FluidSectionSync;
+import com.lordrelentless.mcfluiddynamicsv2.util.Config;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-level fluid simulation. Volumes, velocities and pressure live in a {@link FluidSectionStore};
+ * each level tick runs the flow rules as a kernel over the occupied sections instead of one
+ * block entity ticker per voxel. {@link FluidVoxelBlock} stays in the world as the visible marker.
+ *
+ * <p>The step itself is a {@link FluidCore} working through a {@link LevelFluidView}, so it never touches
+ * the level directly. This class owns the per-level state, feeds it the tick budget and handles the events.
+ *
+ * <p>Volumes and types reach clients through a {@link FluidSectionSync}, one delta per changed section per tick.
+ *
+ * <p>A {@link FluidMassMonitor} tracks the level's totals and shrinks the step budget while fluid grows too fast.
+ */
+public final class FluidSimulator {
+    /** Distance tiers, see {@link Config#LOD_NEAR_BLOCKS}. */
+    public static final int TIER_NEAR = FluidCore.TIER_NEAR, TIER_MID = FluidCore.TIER_MID, TIER_FAR = FluidCore.TIER_FAR;
+
+    private static final Map<ResourceKey<Level>, FluidSimulator> SIMULATORS = new HashMap<>();
+
+    /** Chosen once at startup, see {@link #selectKernel()}. */
+    static final TransferKernel KERNEL = selectKernel();
+
+    private final ServerLevel level;
+    private final FluidSectionStore store = new FluidSectionStore();
+    private final LevelFluidView view;
+    private final FluidSettings settings = new FluidSettings();
+    private final FluidCore core;
+    private final FluidSectionSync sync;
+    private final FluidMassMonitor mass;
+
+    private FluidSimulator(ServerLevel level) {
+        this.level = level;
+        this.view = new LevelFluidView(level);
+        this.core = new FluidCore(store, view, KERNEL, settings);
+        this.sync = new FluidSectionSync(level, store);
+        this.mass = new FluidMassMonitor(store.ledger(), level.dimension().location().toString());
+    }
+
+    /** The Vector API kernel when {@link Config#VECTOR_KERNEL} is set and the JVM provides it, otherwise the scalar one. */
+    private static TransferKernel selectKernel() {
+        TransferKernel kernel = TransferKernel.create(Config.VECTOR_KERNEL,
+                e -> MCFluidDynamicsV2Mod.LOGGER.warn("Vector fluid kernel unavailable, using scalar", e));
+        MCFluidDynamicsV2Mod.LOGGER.info("Fluid transfer kernel: {}", kernel.name());
+        return kernel;
+    }
+
+    public static FluidSimulator get(ServerLevel level) {
+        return SIMULATORS.computeIfAbsent(level.dimension(), k -> new FluidSimulator(level));
+    }
+
+    /** Steps one level under its own {@link Config#FLUID_TICK_BUDGET_MS}, so a busy dimension never starves another. */
+    public static void onLevelTick(LevelTickEvent.Post event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            FluidSimulator simulator = get(serverLevel);
+            simulator.tick();
+            // After the step, so everything it moved goes out as one delta per section
+            simulator.sync.flush();
+            simulator.mass.tick(serverLevel.getGameTime());
+        }
+    }
+
+    /** Wakes the fluid cells around a changed block; settled water only ticks again once something moves. */
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            BlockPos pos = event.getPos();
+            FluidSectionStore store = get(serverLevel).store;
+            store.wakeArea(pos.getX(), pos.getY(), pos.getZ());
+            store.invalidatePressureBelow(pos.getX(), pos.getY(), pos.getZ());
+        }
+    }
+
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            SIMULATORS.remove(serverLevel.dimension());
+        }
+    }
+
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SIMULATORS.clear();
+        FluidCore.shutdownPool();
+    }
+
+    /** Temperatures changed everywhere: phase types inside water bodies have to be checked again. */
+    public static void dissolveAllBodies() {
+        for (FluidSimulator simulator : SIMULATORS.values()) {
+            simulator.core.dissolveBodies();
+        }
+    }
+
+    public FluidSectionStore store() {
+        return store;
+    }
+
+    /** Client sync of this level's fluid state. */
+    public FluidSectionSync sync() {
+        return sync;
+    }
+
+    /** Volume and cell accounting for this level, with the growth alarm. */
+    public FluidMassMonitor mass() {
+        return mass;
+    }
+
+    /**
+     * Seeds the store from a block entity that was just loaded or placed. The ledger counts it as residency,
+     * not growth; cells the step places are already in the store and return early.
+     */
+    public void adopt(FluidVoxelBlockEntity be) {
+        BlockPos pos = be.getBlockPos();
+        if (store.hasFluid(pos.getX(), pos.getY(), pos.getZ())) return;
+
+        int volume = be.getStoredVolume();
+        if (volume > FluidSection.FULL) {
+            // Only saves from before volumes were capped get here; a cell holds at most a full block
+            MCFluidDynamicsV2Mod.LOGGER.warn("Fluid voxel at {} was saved with {} units, more than a full block; keeping {}",
+                    pos, volume, FluidSection.FULL);
+            volume = FluidSection.FULL;
+        }
+
+        FluidSection section = store.getOrCreate(pos.getX(), pos.getY(), pos.getZ());
+        int i = FluidSectionStore.indexAt(pos.getX(), pos.getY(), pos.getZ());
+        section.loadVolume(i, volume);
+        section.vx[i] = be.vx;
+        section.vy[i] = be.vy;
+        section.vz[i] = be.vz;
+        section.pressure[i] = be.pressure;
+        section.setType(i, be.getBlockState().getValue(FluidVoxelBlock.TYPE).ordinal());
+        store.wakeAround(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /** Copies the simulated state of a cell back into its block entity for saving or unloading. */
+    public void writeBack(FluidVoxelBlockEntity be) {
+        BlockPos pos = be.getBlockPos();
+        FluidSection section = store.sectionAt(pos.getX(), pos.getY(), pos.getZ());
+        if (section == null) return;
+
+        int i = FluidSectionStore.indexAt(pos.getX(), pos.getY(), pos.getZ());
+        if (section.volume[i] <= 0) return;
+        be.setStoredVolume(section.volume[i]);
+        be.vx = section.vx[i];
+        be.vy = section.vy[i];
+        be.vz = section.vz[i];
+        be.pressure = section.pressure[i];
+    }
+
+    public int activeCells() {
+        return store.activeCells();
+    }
+
+    public int sleepingCells() {
+        return store.fluidCells() - store.activeCells();
+    }
+
+    public long lastStepNanos() {
+        return core.lastStepNanos();
+    }
+
+    public long lastComputeNanos() {
+        return core.lastComputeNanos();
+    }
+
+    public boolean lastStepParallel() {
+        return core.lastStepParallel();
+    }
+
+    /** Fluid cells in a distance tier as of the last tick. */
+    public int tierCells(int tier) {
+        return core.tierCells(tier);
+    }
+
+    /** Block writes applied at the end of the last tick, the chunk sections they touched, and writes merged away. */
+    public int lastBlockWrites() {
+        return view.lastWrites();
+    }
+
+    public int lastDirtySections() {
+        return view.lastSections();
+    }
+
+    public int lastCoalescedWrites() {
+        return view.lastCoalesced();
+    }
+
+    /** True if the cell belongs to a settled water body, which per-voxel passes can skip. */
+    public boolean isInBody(BlockPos pos) {
+        return core.isInBody(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    public int bodyCount() {
+        return core.bodyCount();
+    }
+
+    public int bodyCells() {
+        return core.bodyCells();
+    }
+
+    /** The water body with the most cells, or null. */
+    public WaterBody largestBody() {
+        return core.largestBody();
+    }
+
+    public int backlogCells() {
+        return core.backlogCells();
+    }
+
+    public long oldestPendingTicks() {
+        return core.oldestPendingTicks();
+    }
+
+    // Section kernel: replaces FluidVoxelBlockEntity.serverTick. Only cells in the active set are visited.
+    // The core always runs: it computes at least one batch however small the budget, then applies, flushes
+    // and updates its stats, so block writes and bookkeeping never wait on the budget.
+    private void tick() {
+        float budgetMs = Config.FLUID_TICK_BUDGET_MS;
+        if (mass.throttled()) {
+            // Growing too fast: step less per tick until the alarm clears; the rest waits in the backlog
+            budgetMs = budgetMs > 0 ? Math.min(budgetMs, Config.MASS_THROTTLE_BUDGET_MS) : Config.MASS_THROTTLE_BUDGET_MS;
+        }
+        readConfig(settings);
+        core.tick(level.getGameTime(), budgetMs);
+
+        long stranded = core.takeStrandedVolume();
+        if (stranded > 0) {
+            MCFluidDynamicsV2Mod.LOGGER.warn("Fluid in {}: {} units had nowhere to go after the world turned placements down",
+                    level.dimension().location(), stranded);
+        }
+    }
+
+    /** Copies the runtime config into a core's settings; commands change {@link Config} at any time. */
+    private static void readConfig(FluidSettings settings) {
+        settings.sleepVolumeEpsilon = Config.SLEEP_VOLUME_EPSILON;
+        settings.sleepAfterTicks = Config.SLEEP_AFTER_TICKS;
+        settings.lodEnabled = Config.LOD_ENABLED;
+        settings.lodNearBlocks = Config.LOD_NEAR_BLOCKS;
+        settings.lodMidBlocks = Config.LOD_MID_BLOCKS;
+        settings.lodMidInterval = Config.LOD_MID_INTERVAL;
+        settings.lakeMode = Config.LAKE_MODE;
+        settings.lakeScanInterval = Config.LAKE_SCAN_INTERVAL;
+        settings.lakeMinCells = Config.LAKE_MIN_CELLS;
+        settings.parallel = Config.PARALLEL_SIMULATION;
+        settings.threads = Config.SIMULATION_THREADS;
+    }
+}
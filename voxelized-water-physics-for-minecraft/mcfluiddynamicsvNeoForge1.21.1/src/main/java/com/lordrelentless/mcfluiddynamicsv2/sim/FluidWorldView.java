@@ -0,0 +1,47 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+
+/**
+ * Everything {@link FluidCore} needs from the world besides its own {@link FluidSectionStore}: which blocks
+ * stop fluid, where fluid blocks are placed and removed, and where the players are.
+ *
+ * <p>{@link #isSolid} may be called from compute workers while the simulating thread waits for them, so it
+ * must not change anything. Writes only come from the simulating thread.
+ */
+public interface FluidWorldView {
+    /**
+     * Anything but air or a replaceable block; fluid blocks are replaceable. Positions the view cannot see,
+     * such as unloaded chunks, count as solid so the step never reaches into them.
+     */
+    boolean isSolid(int x, int y, int z);
+
+    /** Air or replaceable, so fluid may move in; the store says whether fluid is already there. */
+    default boolean isOpen(int x, int y, int z) {
+        return !isSolid(x, y, z);
+    }
+
+    /** Called before sections {@code from..to-1} of {@code sectionKeys} are computed; views that cache world data fill the cache here. */
+    default void prepare(long[] sectionKeys, int from, int to) {}
+
+    /** Queues a fluid block of a VoxelType id; the store already holds its volume. */
+    void placeFluid(int x, int y, int z, int typeId);
+
+    /** Queues removal of a fluid block; other blocks at the position are left alone. */
+    void removeFluid(int x, int y, int z);
+
+    /**
+     * Applies the queued writes at the end of a step, a later write to a position replacing an earlier one.
+     *
+     * @param rejected called with the {@link FluidSectionStore#posKey packed position} of a placement there
+     *                 is no room for
+     */
+    void flush(LongConsumer rejected);
+
+    /** Players, or whatever distance tiers are measured from. */
+    int observerCount();
+
+    double observerX(int index);
+
+    double observerZ(int index);
+}
@@ -0,0 +1,65 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import java.util.Arrays;
+
+/**
+ * Write buffer for one section during a simulation step.
+ * The compute pass fills it from the read-only volume snapshot; the apply pass drains it into the section.
+ */
+final class FluxBuffer {
+    // Outflow slots per cell, in this order
+    static final int DOWN = 0, NORTH = 1, SOUTH = 2, EAST = 3, WEST = 4;
+    static final int DIRECTIONS = 5;
+    static final int[] STEP_X = {0, 0, 0, 1, -1};
+    static final int[] STEP_Y = {-1, 0, 0, 0, 0};
+    static final int[] STEP_Z = {0, -1, 1, 0, 0};
+
+    final int[] out = new int[FluidSection.CELLS * DIRECTIONS];
+    /** Bit d set when the target of outflow d held no fluid in the snapshot, so the cell has to be placed. */
+    final byte[] openMask = new byte[FluidSection.CELLS];
+    /** Volume at the start of the step, for the sleep check. */
+    final int[] before = new int[FluidSection.CELLS];
+
+    /** Scratch row for the transfer kernel. */
+    final TransferRow row = new TransferRow();
+
+    /** Scratch for one column's pressure rebuild: this section's cells, then the section above. */
+    final int[] columnVolume = new int[FluidSection.SIZE * 2];
+    final int[] columnPrefix = new int[FluidSection.SIZE * 2 + 1];
+
+    private final long[] visited = new long[FluidSection.CELLS >> 6];
+
+    void visit(int index, int volume) {
+        visited[index >>> 6] |= 1L << index;
+        before[index] = volume;
+    }
+
+    int nextVisited(int from) {
+        int word = from >>> 6;
+        if (word >= visited.length) return -1;
+
+        long bits = visited[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == visited.length) return -1;
+            bits = visited[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    int totalOut(int index) {
+        int o = index * DIRECTIONS;
+        return out[o] + out[o + 1] + out[o + 2] + out[o + 3] + out[o + 4];
+    }
+
+    /** Clears only the cells touched this step so the buffer can go back to the pool. */
+    void reset() {
+        for (int i = nextVisited(0); i >= 0; i = nextVisited(i + 1)) {
+            int o = i * DIRECTIONS;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                out[o + d] = 0;
+            }
+            openMask[i] = 0;
+        }
+        Arrays.fill(visited, 0L);
+    }
+}
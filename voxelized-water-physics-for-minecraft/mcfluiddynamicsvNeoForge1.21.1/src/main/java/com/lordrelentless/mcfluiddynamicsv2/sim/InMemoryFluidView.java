@@ -0,0 +1,128 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Arrays;
+
+/**
+ * A {@link FluidWorldView} with no level behind it: solid ground below a floor, solid blocks set one by
+ * one, air everywhere else. Fluid blocks are kept as VoxelType ids per position. Writes are applied the
+ * way a level applies them, a later write to a position replacing an earlier one, placements onto solid
+ * blocks rejected and removals only taking away fluid blocks.
+ */
+public final class InMemoryFluidView implements FluidWorldView {
+    private static final int REMOVED = -1;
+
+    private final int floorY;
+    private final LongOpenHashSet solids = new LongOpenHashSet();
+    private final Long2IntOpenHashMap fluidBlocks = new Long2IntOpenHashMap();
+    private final Long2IntOpenHashMap pending = new Long2IntOpenHashMap();
+    private long[] order = new long[64];
+
+    private double[] observerX = new double[4];
+    private double[] observerZ = new double[4];
+    private int observerCount;
+
+    /** Everything below {@code floorY} is solid. */
+    public InMemoryFluidView(int floorY) {
+        this.floorY = floorY;
+        fluidBlocks.defaultReturnValue(REMOVED);
+    }
+
+    public void setSolid(int x, int y, int z, boolean solid) {
+        long pos = FluidSectionStore.posKey(x, y, z);
+        if (solid) {
+            solids.add(pos);
+            fluidBlocks.remove(pos);
+        } else {
+            solids.remove(pos);
+        }
+    }
+
+    /** Fluid blocks count as open, like the replaceable voxel block in a level. */
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        return y < floorY || solids.contains(FluidSectionStore.posKey(x, y, z));
+    }
+
+    @Override
+    public void placeFluid(int x, int y, int z, int typeId) {
+        pending.put(FluidSectionStore.posKey(x, y, z), typeId);
+    }
+
+    @Override
+    public void removeFluid(int x, int y, int z) {
+        pending.put(FluidSectionStore.posKey(x, y, z), REMOVED);
+    }
+
+    /** Applies the queued writes in position order, so rejections come back in the same order every run. */
+    @Override
+    public void flush(LongConsumer rejected) {
+        int count = pending.size();
+        if (count == 0) return;
+
+        if (order.length < count) {
+            order = new long[Math.max(count, order.length * 2)];
+        }
+        int n = 0;
+        for (Long2IntMap.Entry entry : pending.long2IntEntrySet()) {
+            order[n++] = entry.getLongKey();
+        }
+        LongArrays.quickSort(order, 0, count);
+
+        for (int k = 0; k < count; k++) {
+            long pos = order[k];
+            int typeId = pending.get(pos);
+            if (typeId == REMOVED) {
+                fluidBlocks.remove(pos);
+            } else if (FluidSectionStore.posY(pos) < floorY || solids.contains(pos)) {
+                rejected.accept(pos);
+            } else {
+                fluidBlocks.put(pos, typeId);
+            }
+        }
+        pending.clear();
+    }
+
+    /** VoxelType id of the fluid block at a position, or -1 if there is none. */
+    public int fluidAt(int x, int y, int z) {
+        return fluidBlocks.get(FluidSectionStore.posKey(x, y, z));
+    }
+
+    public int fluidBlockCount() {
+        return fluidBlocks.size();
+    }
+
+    public void addObserver(double x, double z) {
+        if (observerCount == observerX.length) {
+            observerX = Arrays.copyOf(observerX, observerCount * 2);
+            observerZ = Arrays.copyOf(observerZ, observerCount * 2);
+        }
+        observerX[observerCount] = x;
+        observerZ[observerCount] = z;
+        observerCount++;
+    }
+
+    public void clearObservers() {
+        observerCount = 0;
+    }
+
+    @Override
+    public int observerCount() {
+        return observerCount;
+    }
+
+    @Override
+    public double observerX(int index) {
+        return observerX[index];
+    }
+
+    @Override
+    public double observerZ(int index) {
+        return observerZ[index];
+    }
+}
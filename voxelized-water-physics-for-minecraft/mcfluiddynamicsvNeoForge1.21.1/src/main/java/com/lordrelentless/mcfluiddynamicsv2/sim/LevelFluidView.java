@@ -0,0 +1,119 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import com.lordrelentless.mcfluiddynamicsv2.MCFluidDynamicsV2Mod;
+import com.lordrelentless.mcfluiddynamicsv2.block.FluidVoxelBlock;
+import com.lordrelentless.mcfluiddynamicsv2.block.VoxelType;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.util.List;
+
+/**
+ * A {@link FluidWorldView} over a server level. Block reads come from chunks cached before each batch,
+ * writes go through a {@link BlockMutationQueue} and observers are the level's players.
+ */
+final class LevelFluidView implements FluidWorldView {
+    private final ServerLevel level;
+    private final BlockMutationQueue mutations = new BlockMutationQueue();
+
+    // Chunks around the active sections, fetched on the server thread so workers never touch the chunk source
+    private final Long2ObjectOpenHashMap<LevelChunk> chunkCache = new Long2ObjectOpenHashMap<>();
+
+    private List<ServerPlayer> players = List.of();
+
+    LevelFluidView(ServerLevel level) {
+        this.level = level;
+    }
+
+    @Override
+    public void prepare(long[] sectionKeys, int from, int to) {
+        for (int k = from; k < to; k++) {
+            int cx = FluidSection.keyX(sectionKeys[k]);
+            int cz = FluidSection.keyZ(sectionKeys[k]);
+            for (int dz = -1; dz <= 1; dz++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    long chunkKey = ChunkPos.asLong(cx + dx, cz + dz);
+                    if (!chunkCache.containsKey(chunkKey)) {
+                        chunkCache.put(chunkKey, level.getChunkSource().getChunkNow(cx + dx, cz + dz));
+                    }
+                }
+            }
+        }
+    }
+
+    /** Unloaded chunks count as solid so the kernel never forces a chunk load. */
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        BlockState state = cachedBlockState(x, y, z);
+        return state == null || (!state.isAir() && !state.canBeReplaced());
+    }
+
+    /**
+     * Block state read straight from the cached chunk's section, safe on compute workers while the
+     * server thread waits for them. Null if the chunk is not loaded.
+     */
+    private BlockState cachedBlockState(int x, int y, int z) {
+        LevelChunk chunk = chunkCache.get(ChunkPos.asLong(x >> 4, z >> 4));
+        if (chunk == null) return null;
+
+        int sectionIndex = chunk.getSectionIndex(y);
+        if (sectionIndex < 0 || sectionIndex >= chunk.getSectionsCount()) {
+            return Blocks.VOID_AIR.defaultBlockState();
+        }
+        return chunk.getSection(sectionIndex).getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    @Override
+    public void placeFluid(int x, int y, int z, int typeId) {
+        BlockState state = MCFluidDynamicsV2Mod.FLUID_VOXEL_BLOCK.get().defaultBlockState()
+                .setValue(FluidVoxelBlock.TYPE, VoxelType.byId(typeId));
+        mutations.place(x, y, z, state);
+    }
+
+    @Override
+    public void removeFluid(int x, int y, int z) {
+        mutations.remove(x, y, z);
+    }
+
+    /** Applies the queued block changes and drops the chunk cache, which is only valid for one tick. */
+    @Override
+    public void flush(LongConsumer rejected) {
+        mutations.flush(level, rejected);
+        chunkCache.clear();
+    }
+
+    @Override
+    public int observerCount() {
+        players = level.players();
+        return players.size();
+    }
+
+    @Override
+    public double observerX(int index) {
+        return players.get(index).getX();
+    }
+
+    @Override
+    public double observerZ(int index) {
+        return players.get(index).getZ();
+    }
+
+    /** Block writes applied at the last flush, the chunk sections they touched, and writes merged away. */
+    int lastWrites() {
+        return mutations.lastWrites();
+    }
+
+    int lastSections() {
+        return mutations.lastSections();
+    }
+
+    int lastCoalesced() {
+        return mutations.lastCoalesced();
+    }
+}
@@ -0,0 +1,116 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import static com.lordrelentless.mcfluiddynamicsv2.sim.FluxBuffer.*;
+
+/** Lane-by-lane transfer rules; the reference for {@code VectorTransferKernel}. */
+final class ScalarTransferKernel implements TransferKernel {
+    private static final int LANES = TransferRow.LANES;
+
+    @Override
+    public void compute(TransferRow row) {
+        for (int l = 0; l < LANES; l++) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                row.out[d * LANES + l] = 0;
+                row.open[d * LANES + l] = false;
+            }
+            if (row.live[l]) {
+                computeLane(row, l);
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    private static void computeLane(TransferRow row, int l) {
+        int volume = row.volume[l];
+        int[] out = row.out;
+        boolean[] open = row.open;
+
+        // Phase 1: Flow downward (gravity) - MOST IMPORTANT
+        int below = row.below[l];
+        if (below > 0) {
+            int space = FluidSection.FULL - below;
+            if (space > MIN_FLOW_VOLUME) {
+                int flowAmount = Math.min(volume, space);
+                out[DOWN * LANES + l] = flowAmount;
+                volume -= flowAmount;
+                if (volume < MIN_FLOW_VOLUME) return;
+            }
+        } else if (row.openBelow[l]) {
+            // Flow into air below: transfer ALL volume downward
+            out[DOWN * LANES + l] = volume;
+            open[DOWN * LANES + l] = true;
+            return;
+        }
+
+        // Phase 2: Equalize with horizontal neighbors, only once the water is resting on something
+        if (row.support[l]) {
+            int totalVolume = volume;
+            int totalBlocks = 1;
+            int emptyCount = 0;
+
+            for (int d = NORTH; d <= WEST; d++) {
+                int n = (d - 1) * LANES + l;
+                if (row.neighbor[n] > 0) {
+                    totalVolume += row.neighbor[n];
+                    totalBlocks++;
+                } else if (row.emptySupported[n]) {
+                    emptyCount++;
+                    totalBlocks++;
+                }
+            }
+
+            // Calculate target volume for perfect equalization
+            int targetVolume = totalVolume / totalBlocks;
+
+            // Don't spread if we're already balanced
+            if (Math.abs(volume - targetVolume) >= BALANCE_VOLUME || emptyCount > 0) {
+                // Equalize with existing water neighbors
+                for (int d = NORTH; d <= WEST; d++) {
+                    int neighborVolume = row.neighbor[(d - 1) * LANES + l];
+                    if (neighborVolume <= 0) continue;
+
+                    int volumeDiff = volume - neighborVolume;
+                    if (volumeDiff > BALANCE_VOLUME) {
+                        int transfer = volumeDiff * row.equalizeRate >> 8; // Transfer 25% of difference, more in mid tier
+                        if (neighborVolume + transfer <= FluidSection.FULL) {
+                            out[d * LANES + l] += transfer;
+                            volume -= transfer;
+                        }
+                    }
+                }
+
+                // Flow into empty neighbors if we have excess
+                if (emptyCount > 0 && volume > targetVolume) {
+                    int excessPerNeighbor = (volume - targetVolume) / emptyCount;
+                    if (excessPerNeighbor > MIN_FLOW_VOLUME) {
+                        for (int d = NORTH; d <= WEST; d++) {
+                            if (!row.emptySupported[(d - 1) * LANES + l]) continue;
+                            out[d * LANES + l] += excessPerNeighbor;
+                            volume -= excessPerNeighbor;
+                            open[d * LANES + l] = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Phase 3: Handle overflow at edges, only if we're overfull or have high pressure
+        if (volume >= OVERFULL_VOLUME || row.highPressure[l]) {
+            for (int d = NORTH; d <= WEST; d++) {
+                // OVERFLOW: water can flow over edges that have nothing below them
+                if (!row.overflowOpen[(d - 1) * LANES + l]) continue;
+
+                int overflowAmount = Math.min(volume * 3 / 10, MAX_OVERFLOW);
+                if (overflowAmount <= MIN_FLOW_VOLUME) continue;
+
+                out[d * LANES + l] += overflowAmount;
+                volume -= overflowAmount;
+                open[d * LANES + l] = true;
+            }
+        }
+    }
+}
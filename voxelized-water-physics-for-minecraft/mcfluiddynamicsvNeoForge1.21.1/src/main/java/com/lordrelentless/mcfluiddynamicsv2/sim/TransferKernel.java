@@ -0,0 +1,44 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import java.util.function.Consumer;
+
+/**
+ * The vertical and horizontal transfer rules for one {@link TransferRow}: flow down, equalize with
+ * horizontal neighbours, spill over edges. All amounts are whole {@link FluidSection#FULL} units, and
+ * implementations must give identical results.
+ */
+interface TransferKernel {
+    int MIN_FLOW_VOLUME = FluidSection.FULL / 100;
+    /** Volume difference to a neighbour below which the cell counts as level with it. */
+    int BALANCE_VOLUME = FluidSection.FULL / 20;
+    /** A cell at least this full spills over open edges. */
+    int OVERFULL_VOLUME = FluidSection.FULL * 95 / 100;
+    /** Most a cell spills over one edge per step. */
+    int MAX_OVERFLOW = FluidSection.FULL / 2;
+    /** Share of the volume difference handed to a lower horizontal neighbour per step, in 256ths. */
+    int EQUALIZE_RATE = 64;
+    /** Water below at least this full counts as a floor to spread on. */
+    int SUPPORT_VOLUME = FluidSection.FULL * 99 / 100;
+
+    void compute(TransferRow row);
+
+    String name();
+
+    /**
+     * The Vector API kernel when {@code vector} is set and the JVM was started with
+     * {@code --add-modules jdk.incubator.vector}, otherwise the scalar one. A vector kernel that fails to
+     * load goes to {@code onFailure}; the caller decides whether that is worth logging.
+     */
+    static TransferKernel create(boolean vector, Consumer<Throwable> onFailure) {
+        if (vector && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so the scalar path never links against the incubator module
+                return (TransferKernel) Class.forName("com.lordrelentless.mcfluiddynamicsv2.sim.VectorTransferKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                onFailure.accept(e);
+            }
+        }
+        return new ScalarTransferKernel();
+    }
+}
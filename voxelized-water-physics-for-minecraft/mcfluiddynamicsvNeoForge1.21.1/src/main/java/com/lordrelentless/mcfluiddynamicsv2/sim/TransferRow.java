@@ -0,0 +1,35 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+/**
+ * One 16-cell x-row of a section, gathered for a {@link TransferKernel}. The simulator fills in the
+ * volumes and the block-state checks the flow rules need; the kernel only does arithmetic on them.
+ * Per-direction arrays hold 16 lanes per direction, in {@link FluxBuffer} direction order.
+ */
+final class TransferRow {
+    static final int LANES = FluidSection.SIZE;
+
+    /** Lane takes part in this step: active and above the minimum flow volume. */
+    final boolean[] live = new boolean[LANES];
+    final int[] volume = new int[LANES];
+    /** Pressure of at least 2, enough to push water over an edge. */
+    final boolean[] highPressure = new boolean[LANES];
+    /** Equalize rate for the whole row, in 256ths of the volume difference. */
+    int equalizeRate;
+
+    final int[] below = new int[LANES];
+    /** Cell below holds no fluid and water may move in. */
+    final boolean[] openBelow = new boolean[LANES];
+    /** Resting on full water or a solid block, so the cell may spread sideways. */
+    final boolean[] support = new boolean[LANES];
+
+    // Horizontal neighbours, NORTH..WEST at (d - 1) * LANES
+    final int[] neighbor = new int[4 * LANES];
+    /** Neighbour holds no fluid, is open and is itself supported. */
+    final boolean[] emptySupported = new boolean[4 * LANES];
+    /** Neighbour and the cell below it are both open, so water can spill over the edge. */
+    final boolean[] overflowOpen = new boolean[4 * LANES];
+
+    // Results: outflow per direction at d * LANES, and whether that target has to be placed
+    final int[] out = new int[FluxBuffer.DIRECTIONS * LANES];
+    final boolean[] open = new boolean[FluxBuffer.DIRECTIONS * LANES];
+}
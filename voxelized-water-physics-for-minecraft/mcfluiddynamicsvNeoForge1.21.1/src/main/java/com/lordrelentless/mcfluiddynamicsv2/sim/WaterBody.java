@@ -0,0 +1,45 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * A connected, settled mass of water tracked as one record. Its cells are asleep and the phase sweep
+ * skips them until one of them is woken, which dissolves the body.
+ */
+public final class WaterBody {
+    private final int id;
+    /** Member cells: section key to a bitset over the section's cell indices. */
+    private final Long2ObjectOpenHashMap<long[]> cells;
+    private final int cellCount;
+    private final int surfaceY;
+    private final float totalVolume;
+
+    WaterBody(int id, Long2ObjectOpenHashMap<long[]> cells, int cellCount, int surfaceY, float totalVolume) {
+        this.id = id;
+        this.cells = cells;
+        this.cellCount = cellCount;
+        this.surfaceY = surfaceY;
+        this.totalVolume = totalVolume;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    Long2ObjectOpenHashMap<long[]> cells() {
+        return cells;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    /** Y of the highest member cell. */
+    public int surfaceY() {
+        return surfaceY;
+    }
+
+    public float totalVolume() {
+        return totalVolume;
+    }
+}
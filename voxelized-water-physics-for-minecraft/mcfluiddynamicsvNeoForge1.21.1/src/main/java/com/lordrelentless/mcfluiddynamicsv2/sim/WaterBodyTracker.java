@@ -0,0 +1,204 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Groups settled water into {@link WaterBody} records ("lake mode").
+ *
+ * <p>Every {@link FluidSettings#lakeScanInterval} ticks sleeping cells that are not yet in a body are flood
+ * filled. A component becomes a body if none of its cells is awake and it has at least
+ * {@link FluidSettings#lakeMinCells} cells. Waking or clearing any member cell dissolves the whole body;
+ * since cells deep inside only change through their neighbours, that only happens at the boundary.
+ */
+final class WaterBodyTracker {
+    private final FluidSectionStore store;
+    private final FluidSettings settings;
+    private final Int2ObjectOpenHashMap<WaterBody> bodies = new Int2ObjectOpenHashMap<>();
+    private int nextId = 1;
+    private int bodyCells = 0;
+
+    // Flood fill scratch: x, y, z per cell of the component being filled
+    private int[] queue = new int[3 * 1024];
+    // Cells flooded this scan, one bit per cell by section, so no cell is flooded twice; cleared when the scan ends
+    private final Long2ObjectOpenHashMap<long[]> visited = new Long2ObjectOpenHashMap<>();
+    private final ArrayDeque<long[]> spareVisited = new ArrayDeque<>();
+
+    WaterBodyTracker(FluidSectionStore store, FluidSettings settings) {
+        this.store = store;
+        this.settings = settings;
+    }
+
+    void tick(long gameTime) {
+        if (!store.disturbedBodies().isEmpty()) {
+            for (IntIterator it = store.disturbedBodies().iterator(); it.hasNext(); ) {
+                dissolve(it.nextInt());
+            }
+            store.disturbedBodies().clear();
+        }
+
+        if (!settings.lakeMode) {
+            dissolveAll();
+        } else if (gameTime % Math.max(1, settings.lakeScanInterval) == 0) {
+            scan();
+        }
+    }
+
+    int bodyCount() {
+        return bodies.size();
+    }
+
+    int bodyCells() {
+        return bodyCells;
+    }
+
+    /** The body with the most cells, or null. */
+    WaterBody largest() {
+        WaterBody largest = null;
+        for (WaterBody body : bodies.values()) {
+            if (largest == null || body.cellCount() > largest.cellCount()) {
+                largest = body;
+            }
+        }
+        return largest;
+    }
+
+    void dissolveAll() {
+        for (int id : bodies.keySet().toIntArray()) {
+            dissolve(id);
+        }
+    }
+
+    private void dissolve(int id) {
+        WaterBody body = bodies.remove(id);
+        if (body == null) return;
+
+        body.cells().forEach((key, members) -> {
+            FluidSection section = store.section(key);
+            if (section == null) return;
+            for (int w = 0; w < members.length; w++) {
+                for (long bits = members[w]; bits != 0; bits &= bits - 1) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (section.getBody(i) == id) {
+                        section.setBody(i, 0);
+                    }
+                }
+            }
+        });
+        bodyCells -= body.cellCount();
+    }
+
+    private void scan() {
+        long[] keys = store.sectionKeys();
+        Arrays.sort(keys);
+        for (long key : keys) {
+            FluidSection section = store.section(key);
+            if (section == null || section.fluidCells() <= section.bodyCells()) continue;
+
+            int baseX = FluidSection.keyX(key) << 4;
+            int baseY = FluidSection.keyY(key) << 4;
+            int baseZ = FluidSection.keyZ(key) << 4;
+            for (int i = 0; i < FluidSection.CELLS; i++) {
+                if (section.volume[i] <= 0 || section.getBody(i) != 0 || section.isActive(i)) continue;
+
+                int x = baseX + FluidSection.localX(i);
+                int y = baseY + FluidSection.localY(i);
+                int z = baseZ + FluidSection.localZ(i);
+                if (visit(x, y, z)) {
+                    flood(x, y, z);
+                }
+            }
+        }
+
+        for (long[] bits : visited.values()) {
+            Arrays.fill(bits, 0);
+            spareVisited.push(bits);
+        }
+        visited.clear();
+    }
+
+    /** Flood fills the sleeping component around a visited cell and turns it into a body if it qualifies. */
+    private void flood(int startX, int startY, int startZ) {
+        int head = 0;
+        int tail = 0;
+        boolean settled = true;
+        int surfaceY = startY;
+        long totalVolume = 0;
+
+        queue = push(queue, tail, startX, startY, startZ);
+        tail += 3;
+
+        while (head < tail) {
+            int x = queue[head];
+            int y = queue[head + 1];
+            int z = queue[head + 2];
+            head += 3;
+
+            surfaceY = Math.max(surfaceY, y);
+            totalVolume += store.getVolume(x, y, z);
+
+            for (int d = 0; d < 6; d++) {
+                int nx = x + (d == 0 ? 1 : d == 1 ? -1 : 0);
+                int ny = y + (d == 2 ? 1 : d == 3 ? -1 : 0);
+                int nz = z + (d == 4 ? 1 : d == 5 ? -1 : 0);
+
+                FluidSection section = store.sectionAt(nx, ny, nz);
+                if (section == null) continue;
+                int i = FluidSectionStore.indexAt(nx, ny, nz);
+                if (section.volume[i] <= 0 || section.getBody(i) != 0) continue;
+
+                if (section.isActive(i)) {
+                    settled = false; // still moving water touches this component
+                    continue;
+                }
+                if (!visit(nx, ny, nz)) continue;
+                queue = push(queue, tail, nx, ny, nz);
+                tail += 3;
+            }
+        }
+
+        int cellCount = tail / 3;
+        if (!settled || cellCount < settings.lakeMinCells) return;
+
+        int id = nextId;
+        Long2ObjectOpenHashMap<long[]> cells = new Long2ObjectOpenHashMap<>();
+        for (int k = 0; k < tail; k += 3) {
+            int i = FluidSectionStore.indexAt(queue[k], queue[k + 1], queue[k + 2]);
+            store.sectionAt(queue[k], queue[k + 1], queue[k + 2]).setBody(i, id);
+            long[] members = cells.computeIfAbsent(FluidSectionStore.sectionKeyAt(queue[k], queue[k + 1], queue[k + 2]),
+                    key -> new long[FluidSection.CELLS >> 6]);
+            members[i >>> 6] |= 1L << i;
+        }
+        bodies.put(id, new WaterBody(id, cells, cellCount, surfaceY, totalVolume / (float) FluidSection.FULL));
+        bodyCells += cellCount;
+        nextId++;
+    }
+
+    /** Marks a cell flooded this scan; false if it already was. */
+    private boolean visit(int x, int y, int z) {
+        long key = FluidSectionStore.sectionKeyAt(x, y, z);
+        long[] bits = visited.get(key);
+        if (bits == null) {
+            bits = spareVisited.isEmpty() ? new long[FluidSection.CELLS >> 6] : spareVisited.pop();
+            visited.put(key, bits);
+        }
+        int i = FluidSectionStore.indexAt(x, y, z);
+        if ((bits[i >>> 6] & (1L << i)) != 0) return false;
+        bits[i >>> 6] |= 1L << i;
+        return true;
+    }
+
+    private static int[] push(int[] array, int size, int x, int y, int z) {
+        if (size + 3 > array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[size] = x;
+        array[size + 1] = y;
+        array[size + 2] = z;
+        return array;
+    }
+}
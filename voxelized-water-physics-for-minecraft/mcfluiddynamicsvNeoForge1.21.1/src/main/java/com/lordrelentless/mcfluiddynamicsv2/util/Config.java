@@ -16,12 +16,66 @@ public final class Config {
     /** Global temperature offset (C). Set via /voxel temp */
     public static float TEMPERATURE_OFFSET_C = 0.0f;
 
-    public static float getTemperatureC(ServerLevel level, BlockPos pos) {
-        // Biome base temperature is roughly 0..2 in vanilla
-        float biomeBase = level.getBiome(pos).value().getBaseTemperature();
+    /** A voxel whose volume moves less than this in a tick counts as calm. */
+    public static float SLEEP_VOLUME_EPSILON = 0.001f;
+
+    /** Calm ticks before a voxel leaves the active set. Set via /voxel sleep */
+    public static int SLEEP_AFTER_TICKS = 20;
+
+    /** Milliseconds per tick each dimension's fluid step may use before it stops and resumes next tick; 0 = unbounded. Set via /voxel budget */
+    public static float FLUID_TICK_BUDGET_MS = 10.0f;
+
+    /** Milliseconds per tick for each dimension's temperature/phase sweep over its fluid index. */
+    public static float PHASE_TICK_BUDGET_MS = 2.0f;
+
+    /** Simulate fluid less often the further it is from players. Set via /voxel lod */
+    public static boolean LOD_ENABLED = true;
+
+    /** Within this many blocks (horizontally) of a player, fluid steps every tick. */
+    public static int LOD_NEAR_BLOCKS = 64;
+
+    /** Within this many blocks fluid steps every {@link #LOD_MID_INTERVAL} ticks; beyond it fluid is frozen. With no players in the dimension all fluid is in this tier. */
+    public static int LOD_MID_BLOCKS = 160;
+
+    /** Ticks between steps in the mid tier. */
+    public static int LOD_MID_INTERVAL = 4;
+
+    /** Group settled connected water into water bodies that skip per-voxel work. Set via /voxel lakes */
+    public static boolean LAKE_MODE = true;
+
+    /** Ticks between scans for new water bodies. */
+    public static int LAKE_SCAN_INTERVAL = 40;
+
+    /** Smallest settled component that becomes a water body. */
+    public static int LAKE_MIN_CELLS = 64;
 
-        // Convert to a rough Celsius-like scale (tweak as desired)
-        float biomeC = (biomeBase - 0.8f) * 50.0f;
+    /** Compute fluid fluxes on worker threads. Set via /voxel parallel */
+    public static boolean PARALLEL_SIMULATION = false;
+
+    /** Worker threads for the parallel fluid step; read when the pool is first created. */
+    public static int SIMULATION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+
+    /** Use the Vector API transfer kernel when the JVM provides it; read once at startup. */
+    public static boolean VECTOR_KERNEL = true;
+
+    /** Send fluid volume and type to clients, one delta per changed section per tick. Set via /voxel sync */
+    public static boolean FLUID_SYNC = true;
+
+    /** Net fluid volume growth per second, in blocks, that raises a dimension's mass alarm; 0 = off. Set via /voxel mass alarm */
+    public static float MASS_ALARM_BLOCKS_PER_SECOND = 512.0f;
+
+    /** Net growth in fluid cells per second that raises the mass alarm; 0 = off. */
+    public static int MASS_ALARM_CELLS_PER_SECOND = 4096;
+
+    /** Fluid step budget per tick while a dimension's mass alarm is raised; 0 = log only. Set via /voxel mass throttle */
+    public static float MASS_THROTTLE_BUDGET_MS = 2.0f;
+
+    /** Seconds between fluid totals in the log, per dimension; 0 = off. */
+    public static int MASS_LOG_SECONDS = 300;
+
+    public static float getTemperatureC(ServerLevel level, BlockPos pos) {
+        // Biome part comes from the per-section cache, one value per 4x4x4 biome cell
+        float biomeC = TemperatureField.get(level).biomeC(pos.getX(), pos.getY(), pos.getZ());
 
         // Cooler at higher Y
         float heightLapse = -(pos.getY() - 64) * 0.1f;
@@ -34,4 +88,9 @@ public final class Config {
 
         return tempC;
     }
+
+    /** Biome base temperature (roughly 0..2 in vanilla) on a rough Celsius-like scale (tweak as desired). */
+    static float biomeC(float biomeBase) {
+        return (biomeBase - 0.8f) * 50.0f;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.lordrelentless.mcfluiddynamicsv2.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.neoforged.neoforge.event.level.ChunkEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-level cache of the biome part of {@link Config#getTemperatureC}: one 4x4x4 grid per chunk
+ * section, one entry per biome cell, filled the first time a voxel in the section asks. Height and
+ * the global offset are cheap and applied on read, so only a chunk (re)load drops its grids.
+ */
+public final class TemperatureField {
+    private static final Map<ResourceKey<Level>, TemperatureField> FIELDS = new HashMap<>();
+
+    private final ServerLevel level;
+    /** Chunk key to per-section grids, indexed like the chunk's sections; null until first read. */
+    private final Long2ObjectOpenHashMap<float[][]> chunks = new Long2ObjectOpenHashMap<>();
+
+    private TemperatureField(ServerLevel level) {
+        this.level = level;
+    }
+
+    public static TemperatureField get(ServerLevel level) {
+        return FIELDS.computeIfAbsent(level.dimension(), k -> new TemperatureField(level));
+    }
+
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        invalidate(event);
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        invalidate(event);
+    }
+
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            FIELDS.remove(serverLevel.dimension());
+        }
+    }
+
+    public static void onServerStopped(ServerStoppedEvent event) {
+        FIELDS.clear();
+    }
+
+    private static void invalidate(ChunkEvent event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            TemperatureField field = FIELDS.get(serverLevel.dimension());
+            if (field != null) {
+                field.chunks.remove(event.getChunk().getPos().toLong());
+            }
+        }
+    }
+
+    /** Biome temperature in Celsius for the biome cell holding the block. */
+    public float biomeC(int x, int y, int z) {
+        int sectionIndex = level.getSectionIndex(y);
+        if (sectionIndex < 0 || sectionIndex >= level.getSectionsCount()) {
+            return sampleBiomeC(x >> 2, y >> 2, z >> 2);
+        }
+
+        long chunkKey = ChunkPos.asLong(x >> 4, z >> 4);
+        float[][] sections = chunks.get(chunkKey);
+        if (sections == null) {
+            sections = new float[level.getSectionsCount()][];
+            chunks.put(chunkKey, sections);
+        }
+
+        float[] grid = sections[sectionIndex];
+        if (grid == null) {
+            grid = buildGrid(x >> 4, y >> 4, z >> 4);
+            sections[sectionIndex] = grid;
+        }
+        return grid[((y >> 2) & 3) << 4 | ((z >> 2) & 3) << 2 | ((x >> 2) & 3)];
+    }
+
+    /** Cached grids, for /voxel stats. */
+    public int cachedSections() {
+        int count = 0;
+        for (float[][] sections : chunks.values()) {
+            for (float[] grid : sections) {
+                if (grid != null) count++;
+            }
+        }
+        return count;
+    }
+
+    private float[] buildGrid(int sectionX, int sectionY, int sectionZ) {
+        float[] grid = new float[64];
+        for (int qy = 0; qy < 4; qy++) {
+            for (int qz = 0; qz < 4; qz++) {
+                for (int qx = 0; qx < 4; qx++) {
+                    grid[qy << 4 | qz << 2 | qx] = sampleBiomeC((sectionX << 2) + qx, (sectionY << 2) + qy, (sectionZ << 2) + qz);
+                }
+            }
+        }
+        return grid;
+    }
+
+    private float sampleBiomeC(int quartX, int quartY, int quartZ) {
+        return Config.biomeC(level.getNoiseBiome(quartX, quartY, quartZ).value().getBaseTemperature());
+    }
+}
@@ -0,0 +1,120 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fluid store in an {@link InMemoryFluidView}: solid below y = 0 and along any walls, air elsewhere.
+ * Rows are gathered by a {@link FluidCore} over the same store and view, so they hold the same block
+ * checks a step makes.
+ */
+public final class BenchmarkGrid {
+    /** Walls reach from the ground up to here, above any scenario's water. */
+    private static final int WALL_HEIGHT = 64;
+
+    private final FluidSectionStore store = new FluidSectionStore();
+    private final InMemoryFluidView view = new InMemoryFluidView(0);
+    private final FluidCore core = new FluidCore(store, view, new FluidSettings());
+    private final FluxBuffer scratch = new FluxBuffer();
+
+    BenchmarkGrid() {}
+
+    public FluidSectionStore store() {
+        return store;
+    }
+
+    public InMemoryFluidView view() {
+        return view;
+    }
+
+    /** A core stepping this grid; it shares the store, so stepping changes what {@link #rows()} returns. */
+    public FluidCore core() {
+        return core;
+    }
+
+    void put(int x, int y, int z, int volume) {
+        store.setVolume(x, y, z, volume);
+        view.placeFluid(x, y, z, 0);
+    }
+
+    /** A wall ring just outside the box x0..x1-1, z0..z1-1. */
+    void walls(int x0, int z0, int x1, int z1) {
+        for (int y = 0; y < WALL_HEIGHT; y++) {
+            for (int x = x0 - 1; x <= x1; x++) {
+                view.setSolid(x, y, z0 - 1, true);
+                view.setSolid(x, y, z1, true);
+            }
+            for (int z = z0; z < z1; z++) {
+                view.setSolid(x0 - 1, y, z, true);
+                view.setSolid(x1, y, z, true);
+            }
+        }
+    }
+
+    /** Places the queued fluid blocks; every scenario cell is on open ground, so nothing is rejected. */
+    void placeBlocks() {
+        view.flush(pos -> {
+            throw new IllegalStateException("fluid placed in a wall at " + FluidSectionStore.posX(pos)
+                    + " " + FluidSectionStore.posY(pos) + " " + FluidSectionStore.posZ(pos));
+        });
+    }
+
+    /** Rebuilds the pressure of every column of every section. */
+    public void rebuildPressure() {
+        for (Long2ObjectMap.Entry<FluidSection> entry : store.sections().long2ObjectEntrySet()) {
+            long key = entry.getLongKey();
+            FluidSection section = entry.getValue();
+            FluidSection above = store.section(FluidSection.key(
+                    FluidSection.keyX(key), FluidSection.keyY(key) + 1, FluidSection.keyZ(key)));
+            int baseX = FluidSection.keyX(key) << 4;
+            int baseY = FluidSection.keyY(key) << 4;
+            int baseZ = FluidSection.keyZ(key) << 4;
+            for (int c = 0; c < FluidSection.SIZE * FluidSection.SIZE; c++) {
+                ColumnPressure.rebuild(section, above, c, baseX + (c & 15), baseY, baseZ + (c >>> 4), scratch, view);
+            }
+        }
+    }
+
+    /** Every row with an awake cell, gathered and ready for a kernel; the kernel only writes the outputs. */
+    TransferRow[] rows() {
+        List<TransferRow> rows = new ArrayList<>();
+        for (long key : store.sectionKeys()) {
+            FluidSection section = store.section(key);
+            int baseX = FluidSection.keyX(key) << 4;
+            int baseY = FluidSection.keyY(key) << 4;
+            int baseZ = FluidSection.keyZ(key) << 4;
+            for (int rowStart = 0; rowStart < FluidSection.CELLS; rowStart += FluidSection.SIZE) {
+                int activeLanes = section.activeRow(rowStart);
+                if (activeLanes == 0) continue;
+
+                TransferRow row = new TransferRow();
+                row.equalizeRate = TransferKernel.EQUALIZE_RATE;
+                int y = baseY + FluidSection.localY(rowStart);
+                int z = baseZ + FluidSection.localZ(rowStart);
+                for (int l = 0; l < TransferRow.LANES; l++) {
+                    int i = rowStart + l;
+                    if ((activeLanes & (1 << l)) == 0 || section.volume[i] < TransferKernel.MIN_FLOW_VOLUME) continue;
+                    row.live[l] = true;
+                    row.volume[l] = section.volume[i];
+                    row.highPressure[l] = section.pressure[i] >= 2.0f;
+                    core.gatherLane(row, l, baseX + l, y, z);
+                }
+                rows.add(row);
+            }
+        }
+        return rows.toArray(new TransferRow[0]);
+    }
+
+    /** Live lanes over all rows. */
+    static int liveCells(TransferRow[] rows) {
+        int cells = 0;
+        for (TransferRow row : rows) {
+            for (boolean live : row.live) {
+                if (live) cells++;
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,283 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Whole {@link FluidCore} steps on an {@link InMemoryFluidView}. The small cases each hold one cell, or two
+ * that only one of them moves, so the Jacobi step has to land exactly where the old per-block-entity
+ * rules did; those rules were applied cell by cell in place, which is the same thing for a lone cell.
+ */
+class FluidCoreTest {
+    private static final int STEPS = 100;
+
+    @ParameterizedTest
+    @EnumSource(FluidScenario.class)
+    void conservesVolume(FluidScenario scenario) {
+        BenchmarkGrid grid = scenario.build(0x5EED);
+        FluidCore core = grid.core();
+        core.settings().lodEnabled = false;
+        long before = totalVolume(grid.store());
+
+        for (int t = 0; t < STEPS; t++) {
+            core.tick(t, 0);
+        }
+
+        assertEquals(before, totalVolume(grid.store()), "volume in the cells");
+        assertEquals(before, grid.store().ledger().volume(), "volume in the ledger");
+        assertEquals(0, core.takeStrandedVolume(), "stranded volume");
+        assertEquals(grid.store().fluidCells(), grid.view().fluidBlockCount(), "a block for every cell");
+    }
+
+    @Test
+    void fallsIntoAirBelow() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.put(3, 5, 3, 600);
+        step(grid);
+
+        assertEquals(0, grid.store().getVolume(3, 5, 3));
+        assertEquals(600, grid.store().getVolume(3, 4, 3));
+        assertEquals(-1, grid.view().fluidAt(3, 5, 3));
+        assertEquals(0, grid.view().fluidAt(3, 4, 3));
+    }
+
+    @Test
+    void poursIntoWaterBelowUntilEmpty() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.put(3, 0, 3, 500);
+        grid.put(3, 1, 3, 400);
+        grid.walls(3, 3, 4, 4); // keeps the lower cell from spreading
+        step(grid);
+
+        assertEquals(900, grid.store().getVolume(3, 0, 3));
+        assertEquals(0, grid.store().getVolume(3, 1, 3));
+        assertEquals(-1, grid.view().fluidAt(3, 1, 3));
+    }
+
+    @Test
+    void spreadsEvenlyOverTheFloor() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.put(3, 0, 3, FluidSection.FULL);
+        step(grid);
+
+        // target = 1000 / 5, the excess split over the four empty supported neighbours
+        assertEquals(200, grid.store().getVolume(3, 0, 3));
+        assertEquals(200, grid.store().getVolume(3, 0, 2));
+        assertEquals(200, grid.store().getVolume(3, 0, 4));
+        assertEquals(200, grid.store().getVolume(4, 0, 3));
+        assertEquals(200, grid.store().getVolume(2, 0, 3));
+        assertEquals(5, grid.view().fluidBlockCount());
+    }
+
+    @Test
+    void equalizesAQuarterOfTheDifference() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.walls(0, 0, 2, 1);
+        grid.put(0, 0, 0, 800);
+        grid.put(1, 0, 0, 200);
+        step(grid);
+
+        // Only the fuller cell gives; a quarter of 600
+        assertEquals(650, grid.store().getVolume(0, 0, 0));
+        assertEquals(350, grid.store().getVolume(1, 0, 0));
+    }
+
+    @Test
+    void overflowsALedge() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.view().setSolid(5, 4, 5, true);
+        grid.put(5, 5, 5, FluidSection.FULL);
+        step(grid);
+
+        // 30% of what is left, over each open edge in turn: north, south, east, west
+        assertEquals(300, grid.store().getVolume(5, 5, 4));
+        assertEquals(210, grid.store().getVolume(5, 5, 6));
+        assertEquals(147, grid.store().getVolume(6, 5, 5));
+        assertEquals(102, grid.store().getVolume(4, 5, 5));
+        assertEquals(241, grid.store().getVolume(5, 5, 5));
+    }
+
+    @Test
+    void returnsVolumeTheWorldTurnsDown() {
+        BenchmarkGrid grid = FluidScenario.DAM_BREAK.build(0x5EED);
+        RejectingView view = new RejectingView(grid.view());
+        FluidSettings settings = new FluidSettings();
+        settings.lodEnabled = false;
+        FluidCore core = new FluidCore(grid.store(), view, new ScalarTransferKernel(), settings);
+        long before = totalVolume(grid.store());
+
+        long stranded = 0;
+        for (int t = 0; t < 30; t++) {
+            view.rejectNext = true;
+            core.tick(t, 0);
+            stranded += core.takeStrandedVolume();
+        }
+
+        assertTrue(view.rejected > 0, "the step tried to place cells");
+        assertEquals(before, totalVolume(grid.store()) + stranded, "volume kept or reported stranded");
+        assertEquals(0, stranded, "every source had room for what it gave");
+        assertEquals(FluidScenario.CELLS, grid.store().fluidCells(), "no cell the world turned down stayed");
+        assertEquals(grid.store().fluidCells(), grid.view().fluidBlockCount(), "a block for every cell");
+        for (long key : grid.store().sectionKeys()) {
+            for (short cell : grid.store().section(key).volume) {
+                assertTrue(cell <= FluidSection.FULL, "no cell over a full block");
+            }
+        }
+    }
+
+    @Test
+    void mergesResidueIntoTheCellBelow() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.walls(3, 3, 4, 4);
+        grid.put(3, 0, 3, 600);
+        grid.put(3, 1, 3, 5);
+        step(grid);
+
+        assertEquals(605, grid.store().getVolume(3, 0, 3));
+        assertEquals(0, grid.store().getVolume(3, 1, 3));
+        assertEquals(-1, grid.view().fluidAt(3, 1, 3));
+    }
+
+    @Test
+    void keepsResidueWithNowhereToGo() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.walls(3, 3, 4, 4);
+        grid.put(3, 0, 3, 600);
+        grid.put(3, 1, 3, 5);
+        grid.store().setType(3, 1, 3, 1); // another type: not merged into the water below
+        grid.put(6, 0, 6, 5); // a lone droplet
+        step(grid);
+
+        assertEquals(600, grid.store().getVolume(3, 0, 3));
+        assertEquals(5, grid.store().getVolume(3, 1, 3));
+        assertEquals(5, grid.store().getVolume(6, 0, 6));
+    }
+
+    @Test
+    void groupsASettledTankIntoOneBody() {
+        BenchmarkGrid grid = FluidScenario.FULL_TANK.build(0x5EED);
+        FluidCore core = grid.core();
+        core.settings().lodEnabled = false;
+        for (int t = 0; t < STEPS; t++) {
+            core.tick(t, 0);
+        }
+
+        assertEquals(1, core.bodyCount());
+        assertEquals(FluidScenario.CELLS, core.bodyCells());
+        assertEquals(FluidScenario.CELLS, sectionBodyCells(grid.store()));
+        assertTrue(core.isInBody(0, 0, 0));
+    }
+
+    @Test
+    void leavesSmallPoolsOutOfBodies() {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        grid.walls(0, 0, 2, 2);
+        for (int x = 0; x < 2; x++) {
+            for (int z = 0; z < 2; z++) {
+                grid.put(x, 0, z, FluidSection.FULL);
+            }
+        }
+        grid.placeBlocks();
+        FluidCore core = grid.core();
+        core.settings().lodEnabled = false;
+        for (int t = 0; t < STEPS; t++) {
+            core.tick(t, 0);
+        }
+
+        // Scanned and turned down, with nothing left marked on the cells
+        assertEquals(0, core.bodyCount());
+        assertEquals(0, sectionBodyCells(grid.store()));
+        assertEquals(0, grid.store().activeCells(), "the pool settled, so it was scanned");
+    }
+
+    /** Places the blocks of the cells put so far and runs one unbudgeted step. */
+    static void step(BenchmarkGrid grid) {
+        grid.placeBlocks();
+        grid.rebuildPressure();
+        grid.core().settings().lodEnabled = false;
+        grid.core().tick(0, 0);
+    }
+
+    /** Cells the sections themselves count as owned by a body. */
+    private static int sectionBodyCells(FluidSectionStore store) {
+        int cells = 0;
+        for (long key : store.sectionKeys()) {
+            cells += store.section(key).bodyCells();
+        }
+        return cells;
+    }
+
+    /** Volume summed over every cell, independent of the ledger. */
+    static long totalVolume(FluidSectionStore store) {
+        long volume = 0;
+        for (long key : store.sectionKeys()) {
+            for (short cell : store.section(key).volume) {
+                volume += cell;
+            }
+        }
+        return volume;
+    }
+
+    /** Turns down every cell placed in the first flush after {@link #rejectNext} is set, like a protected area. */
+    private static final class RejectingView implements FluidWorldView {
+        private final InMemoryFluidView world;
+        private final LongArrayList placed = new LongArrayList();
+        boolean rejectNext;
+        int rejected;
+
+        RejectingView(InMemoryFluidView world) {
+            this.world = world;
+        }
+
+        @Override
+        public boolean isSolid(int x, int y, int z) {
+            return world.isSolid(x, y, z);
+        }
+
+        @Override
+        public void placeFluid(int x, int y, int z, int typeId) {
+            world.placeFluid(x, y, z, typeId);
+            placed.add(FluidSectionStore.posKey(x, y, z));
+        }
+
+        @Override
+        public void removeFluid(int x, int y, int z) {
+            world.removeFluid(x, y, z);
+        }
+
+        @Override
+        public void flush(LongConsumer rejectedPlacement) {
+            if (rejectNext) {
+                rejectNext = false;
+                for (int k = 0; k < placed.size(); k++) {
+                    long pos = placed.getLong(k);
+                    world.setSolid(FluidSectionStore.posX(pos), FluidSectionStore.posY(pos), FluidSectionStore.posZ(pos), true);
+                    rejected++;
+                }
+            }
+            placed.clear();
+            world.flush(rejectedPlacement);
+        }
+
+        @Override
+        public int observerCount() {
+            return 0;
+        }
+
+        @Override
+        public double observerX(int index) {
+            return 0;
+        }
+
+        @Override
+        public double observerZ(int index) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/** Chunk loads and unloads move the totals as residency, and only the simulation's own changes count as growth. */
+class FluidLedgerTest {
+    /** Whole seconds, and clear of the periodic log line at second 0. */
+    private static final long FIRST_TICK = 20, NEXT_SECOND = 40;
+
+    @Test
+    void loadingChunksIsNotGrowth() {
+        FluidSectionStore store = new FluidSectionStore();
+        FluidLedger ledger = store.ledger();
+        FluidMassMonitor monitor = new FluidMassMonitor(ledger, "test");
+        monitor.tick(FIRST_TICK);
+
+        // Far past both alarm limits if it were counted as growth
+        int cells = loadChunks(store, 8);
+        monitor.tick(NEXT_SECOND);
+
+        assertEquals(cells, ledger.cells());
+        assertEquals((long) cells * FluidSection.FULL, ledger.volume());
+        assertEquals(ledger.volume(), ledger.residentVolume());
+        assertEquals(cells, ledger.residentCells());
+        assertEquals(0, ledger.created());
+        assertEquals(0, monitor.createdLastTick());
+        assertEquals(0.0f, monitor.volumePerSecond());
+        assertEquals(0.0f, monitor.cellsPerSecond());
+        assertFalse(monitor.alarmed());
+    }
+
+    @Test
+    void unloadingChunksIsNotLoss() {
+        FluidSectionStore store = new FluidSectionStore();
+        FluidLedger ledger = store.ledger();
+        FluidMassMonitor monitor = new FluidMassMonitor(ledger, "test");
+        loadChunks(store, 8);
+        monitor.tick(FIRST_TICK);
+
+        for (int x = 0; x < 8 * FluidSection.SIZE; x++) {
+            for (int z = 0; z < FluidSection.SIZE; z++) {
+                store.unloadCell(x, 0, z);
+            }
+        }
+        monitor.tick(NEXT_SECOND);
+
+        assertEquals(0, ledger.cells());
+        assertEquals(0, ledger.volume());
+        assertEquals(0, ledger.residentVolume());
+        assertEquals(0, ledger.destroyed());
+        assertEquals(0.0f, monitor.volumePerSecond());
+        assertEquals(0.0f, monitor.cellsPerSecond());
+        assertEquals(0, store.sectionCount(), "empty sections are dropped");
+    }
+
+    @Test
+    void simulatedChangesAreGrowth() {
+        FluidSectionStore store = new FluidSectionStore();
+        FluidLedger ledger = store.ledger();
+        FluidMassMonitor monitor = new FluidMassMonitor(ledger, "test");
+        loadChunks(store, 1);
+        monitor.tick(FIRST_TICK);
+
+        store.setVolume(0, 1, 0, 400);
+        store.setVolume(1, 1, 0, 600);
+        store.clearCell(2, 0, 0);
+        monitor.tick(NEXT_SECOND);
+
+        assertEquals(2, ledger.created());
+        assertEquals(1, ledger.destroyed());
+        assertEquals(2, monitor.createdLastTick());
+        assertEquals(1, monitor.destroyedLastTick());
+        assertEquals(0.0f, monitor.volumePerSecond(), "a block made and a block lost");
+        assertEquals(1.0f, monitor.cellsPerSecond());
+    }
+
+    /** A full layer at y = 0 over {@code chunks} chunks in a row, loaded the way a chunk brings it in. */
+    private static int loadChunks(FluidSectionStore store, int chunks) {
+        int cells = 0;
+        for (int x = 0; x < chunks * FluidSection.SIZE; x++) {
+            for (int z = 0; z < FluidSection.SIZE; z++) {
+                store.getOrCreate(x, 0, z).loadVolume(FluidSectionStore.indexAt(x, 0, z), FluidSection.FULL);
+                cells++;
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,83 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Random;
+
+/**
+ * Synthetic fluid layouts for the tests and benchmarks. Each one holds exactly {@link #CELLS} fluid cells, all
+ * awake, so results from different scenarios are per cell and comparable. Everything below y = 0 is
+ * solid ground; the rest is air unless the scenario builds walls.
+ */
+public enum FluidScenario {
+    /** A 32x16x32 block of full water inside walls: deep, high pressure, nothing left to move. */
+    FULL_TANK {
+        @Override
+        void fill(BenchmarkGrid grid, Random random) {
+            grid.walls(0, 0, 32, 32);
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 32; z++) {
+                    for (int x = 0; x < 32; x++) {
+                        grid.put(x, y, z, FluidSection.FULL);
+                    }
+                }
+            }
+        }
+    },
+    /** A 16x32x32 column of full water at one end of an empty 64x32 basin, the moment the dam goes. */
+    DAM_BREAK {
+        @Override
+        void fill(BenchmarkGrid grid, Random random) {
+            grid.walls(0, 0, 64, 32);
+            for (int y = 0; y < 32; y++) {
+                for (int z = 0; z < 32; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        grid.put(x, y, z, FluidSection.FULL);
+                    }
+                }
+            }
+        }
+    },
+    /** Single small drops scattered over a 256x256 area a few blocks up, falling into open air. */
+    RAIN_FIELD {
+        @Override
+        void fill(BenchmarkGrid grid, Random random) {
+            scatter(grid, random, 0, 4, 0, 256, 16, 256, FluidSection.FULL / 10, FluidSection.FULL * 3 / 10);
+        }
+    },
+    /** A loose 64x16x64 cloud a quarter full of cells of any volume, high above the ground. */
+    SPARSE_CLOUD {
+        @Override
+        void fill(BenchmarkGrid grid, Random random) {
+            scatter(grid, random, 0, 32, 0, 64, 16, 64, TransferKernel.MIN_FLOW_VOLUME, FluidSection.FULL);
+        }
+    };
+
+    /** Fluid cells in every scenario. */
+    public static final int CELLS = 16384;
+
+    abstract void fill(BenchmarkGrid grid, Random random);
+
+    /** A fresh grid with this scenario's fluid in it, the same for the same seed. */
+    public BenchmarkGrid build(long seed) {
+        BenchmarkGrid grid = new BenchmarkGrid();
+        fill(grid, new Random(seed));
+        grid.placeBlocks();
+        grid.rebuildPressure();
+        return grid;
+    }
+
+    /** {@link #CELLS} cells at distinct random positions in the box, each with a volume in min..max. */
+    private static void scatter(BenchmarkGrid grid, Random random, int x0, int y0, int z0,
+                                int sizeX, int sizeY, int sizeZ, int min, int max) {
+        LongOpenHashSet taken = new LongOpenHashSet();
+        while (taken.size() < CELLS) {
+            int x = x0 + random.nextInt(sizeX);
+            int y = y0 + random.nextInt(sizeY);
+            int z = z0 + random.nextInt(sizeZ);
+            if (taken.add((long) x << 40 | (long) y << 20 | z)) {
+                grid.put(x, y, z, min + random.nextInt(max - min + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/** The vector kernel against the scalar reference, row by row and over whole steps. */
+class TransferKernelTest {
+    private static final int STEPS = 40;
+
+    @ParameterizedTest
+    @EnumSource(FluidScenario.class)
+    void vectorRowsMatchScalar(FluidScenario scenario) {
+        TransferRow[] expected = scenario.build(0x5EED).rows();
+        TransferRow[] actual = scenario.build(0x5EED).rows();
+        TransferKernel scalar = new ScalarTransferKernel();
+        TransferKernel vector = vectorKernel();
+
+        for (int r = 0; r < expected.length; r++) {
+            scalar.compute(expected[r]);
+            vector.compute(actual[r]);
+            assertArrayEquals(expected[r].out, actual[r].out, "outflows of row " + r);
+            assertArrayEquals(expected[r].open, actual[r].open, "open directions of row " + r);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(FluidScenario.class)
+    void vectorStepsMatchScalar(FluidScenario scenario) {
+        BenchmarkGrid expected = scenario.build(0x5EED);
+        BenchmarkGrid actual = scenario.build(0x5EED);
+        FluidCore scalar = core(expected, new ScalarTransferKernel());
+        FluidCore vector = core(actual, vectorKernel());
+
+        for (int t = 0; t < STEPS; t++) {
+            scalar.tick(t, 0);
+            vector.tick(t, 0);
+        }
+
+        long[] keys = expected.store().sectionKeys();
+        long[] actualKeys = actual.store().sectionKeys();
+        Arrays.sort(keys);
+        Arrays.sort(actualKeys);
+        assertArrayEquals(keys, actualKeys, "occupied sections");
+        for (long key : keys) {
+            assertArrayEquals(expected.store().section(key).volume, actual.store().section(key).volume,
+                    "volumes of section " + key);
+        }
+        assertEquals(expected.view().fluidBlockCount(), actual.view().fluidBlockCount(), "fluid blocks");
+    }
+
+    private static FluidCore core(BenchmarkGrid grid, TransferKernel kernel) {
+        FluidSettings settings = new FluidSettings();
+        settings.lodEnabled = false;
+        return new FluidCore(grid.store(), grid.view(), kernel, settings);
+    }
+
+    /** The test JVM runs with {@code --add-modules jdk.incubator.vector}, so the vector kernel has to load. */
+    private static TransferKernel vectorKernel() {
+        TransferKernel kernel = TransferKernel.create(true, e -> fail("vector kernel failed to load", e));
+        assertFalse(kernel instanceof ScalarTransferKernel, "vector kernel needs --add-modules jdk.incubator.vector");
+        return kernel;
+    }
+}
@@ -0,0 +1,142 @@
+package com.lordrelentless.mcfluiddynamicsv2.sim;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static com.lordrelentless.mcfluiddynamicsv2.sim.FluxBuffer.*;
+
+/**
+ * {@link ScalarTransferKernel} on jdk.incubator.vector: the same integer operations in the same order,
+ * with the per-cell branches turned into lane masks. Only loaded by {@link TransferKernel#create}, and
+ * built from its own source set so nothing else is compiled against the incubator module.
+ */
+final class VectorTransferKernel implements TransferKernel {
+    private static final int LANES = TransferRow.LANES;
+    // A row is 16 ints; wider preferred shapes fall back to 512 bits
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED.length() <= LANES
+            ? IntVector.SPECIES_PREFERRED : IntVector.SPECIES_512;
+
+    // One kernel serves every compute worker, so the per-direction lane arrays are kept per thread
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    @Override
+    public void compute(TransferRow row) {
+        Scratch lanes = scratch.get();
+        for (int o = 0; o < LANES; o += SPECIES.length()) {
+            computeLanes(row, o, lanes);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    private static void computeLanes(TransferRow row, int o, Scratch lanes) {
+        IntVector zero = IntVector.zero(SPECIES);
+        IntVector one = IntVector.broadcast(SPECIES, 1);
+        VectorMask<Integer> none = SPECIES.maskAll(false);
+
+        IntVector volume = IntVector.fromArray(SPECIES, row.volume, o);
+        VectorMask<Integer> live = VectorMask.fromArray(SPECIES, row.live, o);
+        IntVector[] out = lanes.out;
+        VectorMask<Integer>[] open = lanes.open;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            out[d] = zero;
+            open[d] = none;
+        }
+
+        // Phase 1: flow down into water below, or everything into an open cell below
+        IntVector below = IntVector.fromArray(SPECIES, row.below, o);
+        VectorMask<Integer> hasBelow = live.and(below.compare(VectorOperators.GT, 0));
+        IntVector space = IntVector.broadcast(SPECIES, FluidSection.FULL).sub(below);
+        VectorMask<Integer> flowsDown = hasBelow.and(space.compare(VectorOperators.GT, MIN_FLOW_VOLUME));
+        IntVector flowAmount = volume.min(space);
+        out[DOWN] = zero.blend(flowAmount, flowsDown);
+        volume = volume.sub(flowAmount, flowsDown);
+        live = live.andNot(flowsDown.and(volume.compare(VectorOperators.LT, MIN_FLOW_VOLUME)));
+
+        VectorMask<Integer> falls = live.andNot(hasBelow).and(VectorMask.fromArray(SPECIES, row.openBelow, o));
+        out[DOWN] = out[DOWN].blend(volume, falls);
+        open[DOWN] = falls;
+        live = live.andNot(falls);
+
+        // Phase 2: equalize with horizontal neighbours when supported
+        VectorMask<Integer> supported = live.and(VectorMask.fromArray(SPECIES, row.support, o));
+        IntVector[] neighbor = lanes.neighbor;
+        VectorMask<Integer>[] hasWater = lanes.hasWater;
+        VectorMask<Integer>[] emptySupported = lanes.emptySupported;
+        IntVector totalVolume = volume;
+        IntVector totalBlocks = one;
+        IntVector emptyCount = zero;
+        for (int d = NORTH; d <= WEST; d++) {
+            int n = (d - 1) * LANES + o;
+            neighbor[d] = IntVector.fromArray(SPECIES, row.neighbor, n);
+            hasWater[d] = neighbor[d].compare(VectorOperators.GT, 0);
+            emptySupported[d] = hasWater[d].not().and(VectorMask.fromArray(SPECIES, row.emptySupported, n));
+            totalVolume = totalVolume.add(neighbor[d], hasWater[d]);
+            totalBlocks = totalBlocks.add(one, hasWater[d].or(emptySupported[d]));
+            emptyCount = emptyCount.add(one, emptySupported[d]);
+        }
+
+        IntVector targetVolume = totalVolume.div(totalBlocks);
+        VectorMask<Integer> hasEmpty = emptyCount.compare(VectorOperators.GT, 0);
+        VectorMask<Integer> spreads = supported.and(volume.sub(targetVolume).abs()
+                .compare(VectorOperators.GE, BALANCE_VOLUME).or(hasEmpty));
+
+        for (int d = NORTH; d <= WEST; d++) {
+            IntVector volumeDiff = volume.sub(neighbor[d]);
+            IntVector transfer = volumeDiff.mul(row.equalizeRate).lanewise(VectorOperators.ASHR, 8);
+            VectorMask<Integer> gives = spreads.and(hasWater[d])
+                    .and(volumeDiff.compare(VectorOperators.GT, BALANCE_VOLUME))
+                    .and(neighbor[d].add(transfer).compare(VectorOperators.LE, FluidSection.FULL));
+            out[d] = out[d].add(transfer, gives);
+            volume = volume.sub(transfer, gives);
+        }
+
+        VectorMask<Integer> hasExcess = spreads.and(hasEmpty).and(volume.compare(VectorOperators.GT, targetVolume));
+        // Lanes without empty neighbours divide by one and are masked off
+        IntVector excessPerNeighbor = volume.sub(targetVolume).div(emptyCount.max(1));
+        hasExcess = hasExcess.and(excessPerNeighbor.compare(VectorOperators.GT, MIN_FLOW_VOLUME));
+        for (int d = NORTH; d <= WEST; d++) {
+            VectorMask<Integer> fills = hasExcess.and(emptySupported[d]);
+            out[d] = out[d].add(excessPerNeighbor, fills);
+            volume = volume.sub(excessPerNeighbor, fills);
+            open[d] = open[d].or(fills);
+        }
+
+        // Phase 3: spill over open edges when overfull or under pressure
+        VectorMask<Integer> overflows = live.and(volume.compare(VectorOperators.GE, OVERFULL_VOLUME)
+                .or(VectorMask.fromArray(SPECIES, row.highPressure, o)));
+        for (int d = NORTH; d <= WEST; d++) {
+            IntVector overflowAmount = volume.mul(3).div(10).min(MAX_OVERFLOW);
+            VectorMask<Integer> spills = overflows
+                    .and(VectorMask.fromArray(SPECIES, row.overflowOpen, (d - 1) * LANES + o))
+                    .and(overflowAmount.compare(VectorOperators.GT, MIN_FLOW_VOLUME));
+            out[d] = out[d].add(overflowAmount, spills);
+            volume = volume.sub(overflowAmount, spills);
+            open[d] = open[d].or(spills);
+        }
+
+        for (int d = 0; d < DIRECTIONS; d++) {
+            out[d].intoArray(row.out, d * LANES + o);
+            open[d].intoArray(row.open, d * LANES + o);
+        }
+    }
+
+    /** Per-direction lane values for one call; every slot that is read is written first. */
+    private static final class Scratch {
+        final IntVector[] out = new IntVector[DIRECTIONS];
+        final VectorMask<Integer>[] open = newMasks();
+        final IntVector[] neighbor = new IntVector[DIRECTIONS];
+        final VectorMask<Integer>[] hasWater = newMasks();
+        final VectorMask<Integer>[] emptySupported = newMasks();
+
+        @SuppressWarnings("unchecked")
+        private static VectorMask<Integer>[] newMasks() {
+            return (VectorMask<Integer>[]) new VectorMask[DIRECTIONS];
+        }
+    }
+}